@@ -0,0 +1,46 @@
+package miosm.user_service.benchmark;
+
+import miosm.user_service.UserServiceApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Boots the service against an in-memory H2 database in MySQL mode, without MinIO, Eureka or a web server
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String name, Map<String, Object> overrides) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("spring.datasource.url",
+                "jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        properties.put("spring.datasource.username", "sa");
+        properties.put("spring.datasource.password", "");
+        properties.put("spring.jpa.database-platform", "org.hibernate.dialect.H2Dialect");
+        properties.put("spring.jpa.hibernate.ddl-auto", "create");
+        properties.put("spring.jpa.show-sql", "false");
+        // Bind UUIDs the way they are stored in MySQL rather than as H2's native UUID type
+        properties.put("spring.jpa.properties.hibernate.type.preferred_uuid_jdbc_type", "BINARY");
+        properties.put("spring.cloud.discovery.enabled", "false");
+        properties.put("eureka.client.enabled", "false");
+        properties.put("minio.bootstrap.enabled", "false");
+        properties.put("app.upload.presign.secret", "benchmark-upload-token-secret-0123456789");
+        // Keep background jobs out of the measurement window
+        properties.put("app.search.refresh-interval", "PT1H");
+        properties.put("app.ingest.poll-interval", "PT1H");
+        properties.put("app.gc.interval", "PT1H");
+        properties.put("app.follows.counters.reconcile-initial-delay", "PT1H");
+        properties.put("logging.level.root", "WARN");
+        properties.putAll(overrides);
+
+        return new SpringApplicationBuilder(UserServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(properties)
+                .run();
+    }
+}
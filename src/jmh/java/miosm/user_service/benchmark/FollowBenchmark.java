@@ -0,0 +1,90 @@
+package miosm.user_service.benchmark;
+
+import miosm.user_service.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FollowBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int users;
+
+    // DEBUG turns the per-call narration back on, so the difference is what logging costs on this path
+    @Param({"INFO", "DEBUG"})
+    public String logLevel;
+
+    @Param({"10"})
+    public int followsPerUser;
+
+    private static final int UNFOLLOWED_PAIRS = 10_000;
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private List<UUID> ids;
+    private UUID[][] unfollowedPairs;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("follow" + users + logLevel,
+                Map.of("logging.level.miosm.user_service", logLevel));
+        ids = new GraphSeeder(context.getBean(JdbcTemplate.class)).seed(users, followsPerUser);
+        userService = context.getBean(UserService.class);
+
+        // Only pairs without a seeded edge, so the unfollow below never removes part of the graph
+        unfollowedPairs = new UUID[UNFOLLOWED_PAIRS][];
+        int found = 0;
+        while (found < UNFOLLOWED_PAIRS) {
+            UUID follower = randomUser();
+            UUID following = randomUser();
+            if (!follower.equals(following) && !userService.isFollowing(follower, following)) {
+                unfollowedPairs[found++] = new UUID[]{follower, following};
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // Paired so the graph, and with it the index sizes, stay the same across iterations
+    @Benchmark
+    public void followThenUnfollow() {
+        UUID[] pair = unfollowedPairs[ThreadLocalRandom.current().nextInt(unfollowedPairs.length)];
+        userService.followUser(pair[0], pair[1]);
+        userService.unfollowUser(pair[0], pair[1]);
+    }
+
+    @Benchmark
+    public boolean isFollowing() {
+        return userService.isFollowing(randomUser(), randomUser());
+    }
+
+    @Benchmark
+    public boolean isFollowingCelebrity() {
+        return userService.isFollowing(randomUser(), ids.get(0));
+    }
+
+    private UUID randomUser() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+}
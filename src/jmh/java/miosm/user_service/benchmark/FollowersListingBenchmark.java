@@ -0,0 +1,91 @@
+package miosm.user_service.benchmark;
+
+import miosm.user_service.dto.CursorPageDto;
+import miosm.user_service.dto.UserCardDto;
+import miosm.user_service.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FollowersListingBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int users;
+
+    @Param({"INFO", "DEBUG"})
+    public String logLevel;
+
+    @Param({"20"})
+    public int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private List<UUID> ids;
+    private String deepCursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("listing" + users + logLevel,
+                Map.of("logging.level.miosm.user_service", logLevel));
+        ids = new GraphSeeder(context.getBean(JdbcTemplate.class)).seed(users, 10);
+        userService = context.getBean(UserService.class);
+
+        // Walk part of the way down the celebrity's followers so the keyset seek is measured too
+        String cursor = null;
+        for (int i = 0; i < 50; i++) {
+            String next = userService.getFollowers(ids.get(0), cursor, 100).getNextCursor();
+            if (next == null) {
+                break;
+            }
+            cursor = next;
+        }
+        deepCursor = cursor;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CursorPageDto<UserCardDto> celebrityFollowersFirstPage() {
+        return userService.getFollowers(ids.get(0), null, pageSize);
+    }
+
+    @Benchmark
+    public CursorPageDto<UserCardDto> celebrityFollowersDeepPage() {
+        return userService.getFollowers(ids.get(0), deepCursor, pageSize);
+    }
+
+    @Benchmark
+    public CursorPageDto<UserCardDto> followersOfRandomUser() {
+        return userService.getFollowers(randomUser(), null, pageSize);
+    }
+
+    @Benchmark
+    public CursorPageDto<UserCardDto> followingOfRandomUser() {
+        return userService.getFollowing(randomUser(), null, pageSize);
+    }
+
+    private UUID randomUser() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+}
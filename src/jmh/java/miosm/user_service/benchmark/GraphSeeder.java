@@ -0,0 +1,63 @@
+package miosm.user_service.benchmark;
+
+import miosm.user_service.fixtures.SeedWriter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+final class GraphSeeder {
+
+    private static final String[] WORDS = {
+            "photography", "coffee", "travel", "java", "music", "running", "design", "books", "cats", "hiking"
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Random random = new Random(42);
+
+    GraphSeeder(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Every user follows followsPerUser random others, one of which is always user 0, the "celebrity"
+    List<UUID> seed(int users, int followsPerUser) {
+        List<UUID> ids = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            ids.add(new UUID(random.nextLong(), random.nextLong()));
+        }
+
+        SeedWriter writer = new SeedWriter(jdbcTemplate);
+        for (int i = 0; i < users; i++) {
+            String avatarUrl = i % 3 == 0 ? null : "http://localhost:9000/user-images/avatars/" + ids.get(i) + ".png";
+            writer.user(ids.get(i), "user" + i, bio(), avatarUrl);
+        }
+
+        LocalDateTime base = LocalDateTime.now().minusDays(30);
+        for (int i = 1; i < users; i++) {
+            writer.follow(ids.get(i), ids.get(0), createdAt(base));
+            for (int n = 1; n < followsPerUser && users > 2; n++) {
+                int target = 1 + random.nextInt(users - 1);
+                if (target != i) {
+                    writer.follow(ids.get(i), ids.get(target), createdAt(base));
+                }
+            }
+        }
+        writer.finish();
+        return ids;
+    }
+
+    private LocalDateTime createdAt(LocalDateTime base) {
+        return base.plusSeconds(random.nextInt(30 * 24 * 3600));
+    }
+
+    private String bio() {
+        StringBuilder bio = new StringBuilder();
+        for (int i = 0; i < 6; i++) {
+            bio.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        return bio.toString().trim();
+    }
+}
@@ -0,0 +1,80 @@
+package miosm.user_service.benchmark;
+
+import miosm.user_service.dto.UserCardDto;
+import miosm.user_service.dto.UserResponseDto;
+import miosm.user_service.entity.User;
+import miosm.user_service.mapper.UserCardMapper;
+import miosm.user_service.mapper.UserCardMapperImpl;
+import miosm.user_service.mapper.UserResponseMapper;
+import miosm.user_service.mapper.UserResponseMapperImpl;
+import miosm.user_service.repository.projection.UserCardView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MapperBenchmark {
+
+    private final UserResponseMapper mapper = new UserResponseMapperImpl();
+    private final UserCardMapper cardMapper = new UserCardMapperImpl();
+    private User user;
+    private UserCardView card;
+
+    @Setup
+    public void setUp() {
+        UUID id = UUID.randomUUID();
+        user = new User();
+        user.setId(id);
+        user.setUsername("user42");
+        user.setBio("photography coffee travel java music running design books cats hiking");
+        user.setAvatarUrl("http://localhost:9000/user-images/avatars/" + id + ".png");
+        user.setCoverImageUrl("http://localhost:9000/user-images/covers/" + id + ".jpg");
+        user.setAvatarRenditionsReady(true);
+        user.setCoverImageRenditionsReady(true);
+        user.setCreatedAt(LocalDateTime.now());
+        user.setUpdatedAt(LocalDateTime.now());
+
+        card = new UserCardView() {
+            @Override
+            public UUID getId() {
+                return user.getId();
+            }
+
+            @Override
+            public String getUsername() {
+                return user.getUsername();
+            }
+
+            @Override
+            public String getAvatarUrl() {
+                return user.getAvatarUrl();
+            }
+
+            @Override
+            public Boolean getAvatarRenditionsReady() {
+                return true;
+            }
+        };
+    }
+
+    @Benchmark
+    public UserResponseDto toDto() {
+        return mapper.toDto(user);
+    }
+
+    // What the list endpoints build per row since they moved to projections
+    @Benchmark
+    public UserCardDto toCard() {
+        return cardMapper.toDto(card);
+    }
+}
@@ -0,0 +1,78 @@
+package miosm.user_service.benchmark;
+
+import miosm.user_service.dto.CursorPageDto;
+import miosm.user_service.dto.UserCardDto;
+import miosm.user_service.search.UserSearchIndex;
+import miosm.user_service.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SearchBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int users;
+
+    @Param({"INFO", "DEBUG"})
+    public String logLevel;
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private UserSearchIndex searchIndex;
+    private List<UUID> ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("search" + users + logLevel,
+                Map.of("logging.level.miosm.user_service", logLevel));
+        ids = new GraphSeeder(context.getBean(JdbcTemplate.class)).seed(users, 1);
+        searchIndex = context.getBean(UserSearchIndex.class);
+        searchIndex.rebuild();
+        userService = context.getBean(UserService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // Search-as-you-type: a short username prefix matching many users
+    @Benchmark
+    public CursorPageDto<UserCardDto> usernamePrefix() {
+        return userService.searchUsers("user1", null, 20);
+    }
+
+    @Benchmark
+    public CursorPageDto<UserCardDto> exactUsername() {
+        return userService.searchUsers("user" + ThreadLocalRandom.current().nextInt(users), null, 20);
+    }
+
+    @Benchmark
+    public CursorPageDto<UserCardDto> bioWord() {
+        return userService.searchUsers("coffee", null, 20);
+    }
+
+    @Benchmark
+    public void reindexUser() {
+        int i = ThreadLocalRandom.current().nextInt(users);
+        searchIndex.index(ids.get(i), "user" + i, "travel java hiking");
+    }
+}
@@ -0,0 +1,44 @@
+package miosm.user_service.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+final class EndpointStats {
+
+    private final String name;
+    // Microsecond resolution up to one minute with three significant digits
+    private final Histogram latency = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+    private final LongAdder errors = new LongAdder();
+
+    EndpointStats(String name) {
+        this.name = name;
+    }
+
+    String name() {
+        return name;
+    }
+
+    Histogram latency() {
+        return latency;
+    }
+
+    long errors() {
+        return errors.sum();
+    }
+
+    void record(long startNanos, boolean success) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+        latency.recordValue(Math.min(micros, latency.getHighestTrackableValue()));
+        if (!success) {
+            errors.increment();
+        }
+    }
+
+    void reset() {
+        latency.reset();
+        errors.reset();
+    }
+}
@@ -0,0 +1,193 @@
+package miosm.user_service.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// In-memory stand-in for the subset of the S3 API the MinIO client uses here; signatures are not checked
+final class FakeS3Server implements AutoCloseable {
+
+    private static final String NS = "http://s3.amazonaws.com/doc/2006-03-01/";
+    private static final Pattern DELETE_KEY = Pattern.compile("<Key>(.*?)</Key>");
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d*)");
+
+    private record StoredObject(byte[] data, String contentType, String etag, Instant lastModified) {
+    }
+
+    private final HttpServer server;
+    private final Set<String> buckets = ConcurrentHashMap.newKeySet();
+    private final Map<String, StoredObject> objects = new ConcurrentHashMap<>();
+
+    FakeS3Server() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    String endpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getRawPath().substring(1);
+            String query = exchange.getRequestURI().getRawQuery();
+            int slash = path.indexOf('/');
+            String bucket = slash < 0 ? path : path.substring(0, slash);
+            String key = slash < 0 || slash == path.length() - 1
+                    ? null
+                    : URLDecoder.decode(path.substring(slash + 1), StandardCharsets.UTF_8);
+
+            if (key == null) {
+                handleBucket(exchange, bucket, query);
+            } else {
+                handleObject(exchange, bucket, key);
+            }
+        }
+    }
+
+    private void handleBucket(HttpExchange exchange, String bucket, String query) throws IOException {
+        String method = exchange.getRequestMethod();
+        if ("GET".equals(method) && query != null && query.startsWith("location")) {
+            xml(exchange, 200, "<LocationConstraint xmlns=\"" + NS + "\"></LocationConstraint>");
+        } else if ("HEAD".equals(method)) {
+            empty(exchange, buckets.contains(bucket) ? 200 : 404);
+        } else if ("PUT".equals(method)) {
+            // Bucket creation and policy/CORS updates
+            exchange.getRequestBody().readAllBytes();
+            buckets.add(bucket);
+            empty(exchange, 200);
+        } else if ("POST".equals(method) && query != null && query.startsWith("delete")) {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            Matcher matcher = DELETE_KEY.matcher(body);
+            while (matcher.find()) {
+                objects.remove(bucket + "/" + matcher.group(1));
+            }
+            // Quiet mode: only errors are listed
+            xml(exchange, 200, "<DeleteResult xmlns=\"" + NS + "\"></DeleteResult>");
+        } else {
+            error(exchange, 501, "NotImplemented", bucket);
+        }
+    }
+
+    private void handleObject(HttpExchange exchange, String bucket, String key) throws IOException {
+        if (!buckets.contains(bucket)) {
+            error(exchange, 404, "NoSuchBucket", bucket);
+            return;
+        }
+        String id = bucket + "/" + key;
+        switch (exchange.getRequestMethod()) {
+            case "PUT" -> {
+                byte[] data;
+                try (InputStream body = exchange.getRequestBody()) {
+                    data = body.readAllBytes();
+                }
+                String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+                StoredObject object = new StoredObject(data, contentType == null ? "application/octet-stream" : contentType,
+                        "\"" + md5(data) + "\"", Instant.now());
+                objects.put(id, object);
+                exchange.getResponseHeaders().set("ETag", object.etag());
+                empty(exchange, 200);
+            }
+            case "HEAD" -> {
+                StoredObject object = objects.get(id);
+                if (object == null) {
+                    empty(exchange, 404);
+                    return;
+                }
+                headers(exchange, object);
+                exchange.getResponseHeaders().set("Content-Length", String.valueOf(object.data().length));
+                exchange.sendResponseHeaders(200, -1);
+            }
+            case "GET" -> {
+                StoredObject object = objects.get(id);
+                if (object == null) {
+                    error(exchange, 404, "NoSuchKey", key);
+                    return;
+                }
+                headers(exchange, object);
+                byte[] data = object.data();
+                int start = 0;
+                int end = data.length - 1;
+                int status = 200;
+                String range = exchange.getRequestHeaders().getFirst("Range");
+                Matcher matcher = range == null ? null : RANGE.matcher(range);
+                if (matcher != null && matcher.matches()) {
+                    start = Integer.parseInt(matcher.group(1));
+                    if (!matcher.group(2).isEmpty()) {
+                        end = Math.min(end, Integer.parseInt(matcher.group(2)));
+                    }
+                    status = 206;
+                    exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + data.length);
+                }
+                int length = Math.max(0, end - start + 1);
+                exchange.sendResponseHeaders(status, length == 0 ? -1 : length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(data, start, length);
+                }
+            }
+            case "DELETE" -> {
+                objects.remove(id);
+                empty(exchange, 204);
+            }
+            default -> error(exchange, 501, "NotImplemented", key);
+        }
+    }
+
+    private static void headers(HttpExchange exchange, StoredObject object) {
+        exchange.getResponseHeaders().set("Content-Type", object.contentType());
+        exchange.getResponseHeaders().set("ETag", object.etag());
+        exchange.getResponseHeaders().set("Last-Modified",
+                DateTimeFormatter.RFC_1123_DATE_TIME.format(object.lastModified().atZone(ZoneOffset.UTC)));
+        exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+    }
+
+    private static void error(HttpExchange exchange, int status, String code, String resource) throws IOException {
+        xml(exchange, status, "<Error><Code>" + code + "</Code><Message>" + code + "</Message>" +
+                "<Resource>" + resource + "</Resource><RequestId>fake</RequestId></Error>");
+    }
+
+    private static void xml(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void empty(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+    }
+
+    private static String md5(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(data));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package miosm.user_service.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+final class LoadReport {
+
+    record ScenarioResult(String name, Duration elapsed, long allocatedBytes, List<EndpointStats> endpoints) {
+    }
+
+    private final String profile;
+    private final int users;
+    private final int concurrency;
+    private final Duration duration;
+
+    LoadReport(String profile, int users, int concurrency, Duration duration) {
+        this.profile = profile;
+        this.users = users;
+        this.concurrency = concurrency;
+        this.duration = duration;
+    }
+
+    // Prints a summary table and writes report.json plus one .hgrm file per endpoint into <profile>-c<clients>-<timestamp>/
+    Path write(Path directory, List<ScenarioResult> results) throws IOException {
+        String run = profile + "-c" + concurrency + "-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Path runDir = Files.createDirectories(directory.resolve(run));
+
+        System.out.printf(Locale.ROOT, "%n%-20s %-36s %10s %10s %10s %10s %8s %12s%n",
+                "scenario", "endpoint", "req/s", "p50 ms", "p99 ms", "p999 ms", "errors", "alloc MB/s");
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"profile\": \"").append(profile).append("\",\n");
+        json.append("  \"users\": ").append(users).append(",\n");
+        json.append("  \"concurrency\": ").append(concurrency).append(",\n");
+        json.append("  \"durationSeconds\": ").append(duration.toSeconds()).append(",\n");
+        json.append("  \"scenarios\": [\n");
+
+        for (int s = 0; s < results.size(); s++) {
+            ScenarioResult result = results.get(s);
+            double seconds = result.elapsed().toNanos() / 1e9;
+            // Allocation is process-wide, so it covers the in-process client and S3 fake as well as the service
+            double allocationRate = result.allocatedBytes() / seconds / (1024 * 1024);
+
+            json.append("    {\"name\": \"").append(result.name()).append("\", ")
+                    .append(String.format(Locale.ROOT, "\"allocationMBps\": %.1f, ", allocationRate))
+                    .append("\"endpoints\": [\n");
+
+            List<EndpointStats> endpoints = result.endpoints().stream()
+                    .sorted(Comparator.comparing(EndpointStats::name))
+                    .toList();
+            for (int e = 0; e < endpoints.size(); e++) {
+                EndpointStats endpoint = endpoints.get(e);
+                Histogram latency = endpoint.latency();
+                double throughput = latency.getTotalCount() / seconds;
+
+                System.out.printf(Locale.ROOT, "%-20s %-36s %10.1f %10.2f %10.2f %10.2f %8d %12.1f%n",
+                        result.name(), endpoint.name(), throughput,
+                        millis(latency, 50.0), millis(latency, 99.0), millis(latency, 99.9),
+                        endpoint.errors(), allocationRate);
+
+                json.append(String.format(Locale.ROOT,
+                        "      {\"endpoint\": \"%s\", \"requests\": %d, \"errors\": %d, \"throughput\": %.1f, " +
+                        "\"p50Ms\": %.3f, \"p99Ms\": %.3f, \"p999Ms\": %.3f, \"maxMs\": %.3f}%s%n",
+                        endpoint.name(), latency.getTotalCount(), endpoint.errors(), throughput,
+                        millis(latency, 50.0), millis(latency, 99.0), millis(latency, 99.9),
+                        latency.getMaxValue() / 1000.0, e < endpoints.size() - 1 ? "," : ""));
+
+                Path hgrm = runDir.resolve(result.name() + "_" + endpoint.name().replaceAll("[^A-Za-z0-9]+", "_") + ".hgrm");
+                try (PrintStream out = new PrintStream(Files.newOutputStream(hgrm))) {
+                    latency.outputPercentileDistribution(out, 1000.0);
+                }
+            }
+            json.append("    ]}").append(s < results.size() - 1 ? "," : "").append('\n');
+        }
+        json.append("  ]\n}\n");
+
+        Path report = runDir.resolve("report.json");
+        Files.writeString(report, json);
+        return report;
+    }
+
+    // Writes comparison-<timestamp>.md with one row per scenario, endpoint and concurrency level
+    static Path writeComparison(Path directory, String baselineName, Map<Integer, List<ScenarioResult>> baseline,
+                                String candidateName, Map<Integer, List<ScenarioResult>> candidate) throws IOException {
+        StringBuilder table = new StringBuilder();
+        table.append(String.format(Locale.ROOT, "| scenario | endpoint | clients | %1$s req/s | %2$s req/s | %1$s p99 ms | %2$s p99 ms | %1$s errors | %2$s errors |%n",
+                baselineName, candidateName));
+        table.append("|---|---|---:|---:|---:|---:|---:|---:|---:|\n");
+        for (Map.Entry<Integer, List<ScenarioResult>> level : baseline.entrySet()) {
+            List<ScenarioResult> other = candidate.getOrDefault(level.getKey(), List.of());
+            for (ScenarioResult result : level.getValue()) {
+                ScenarioResult match = other.stream().filter(o -> o.name().equals(result.name())).findFirst().orElse(null);
+                List<EndpointStats> endpoints = result.endpoints().stream()
+                        .sorted(Comparator.comparing(EndpointStats::name))
+                        .toList();
+                for (EndpointStats endpoint : endpoints) {
+                    EndpointStats peer = match == null ? null : match.endpoints().stream()
+                            .filter(e -> e.name().equals(endpoint.name())).findFirst().orElse(null);
+                    table.append(String.format(Locale.ROOT, "| %s | %s | %d | %.1f | %s | %.2f | %s | %d | %s |%n",
+                            result.name(), endpoint.name(), level.getKey(),
+                            throughput(result, endpoint), peer == null ? "-" : String.format(Locale.ROOT, "%.1f", throughput(match, peer)),
+                            millis(endpoint.latency(), 99.0), peer == null ? "-" : String.format(Locale.ROOT, "%.2f", millis(peer.latency(), 99.0)),
+                            endpoint.errors(), peer == null ? "-" : String.valueOf(peer.errors())));
+                }
+            }
+        }
+        System.out.printf("%n%s", table);
+        Path report = Files.createDirectories(directory)
+                .resolve("comparison-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".md");
+        Files.writeString(report, table);
+        return report;
+    }
+
+    private static double throughput(ScenarioResult result, EndpointStats endpoint) {
+        return endpoint.latency().getTotalCount() / (result.elapsed().toNanos() / 1e9);
+    }
+
+    private static double millis(Histogram latency, double percentile) {
+        return latency.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
@@ -0,0 +1,253 @@
+package miosm.user_service.loadtest;
+
+import miosm.user_service.UserServiceApplication;
+import miosm.user_service.search.UserSearchIndex;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Closed-loop load test of the REST surface against H2 and an in-process S3 fake.
+// Configure with -Dloadtest.users, .follows-per-user, .concurrency, .warmup, .duration, .profile, .report-dir
+public final class LoadTest {
+
+    private static final Pattern AVATAR_URL = Pattern.compile("\"avatarUrl\":\"([^\"]+)\"");
+
+    private final int users = Integer.getInteger("loadtest.users", 100_000);
+    private final int followsPerUser = Integer.getInteger("loadtest.follows-per-user", 20);
+    private final Duration warmup = Duration.parse(System.getProperty("loadtest.warmup", "PT10S"));
+    private final Duration duration = Duration.parse(System.getProperty("loadtest.duration", "PT30S"));
+    private final Path reportDir = Path.of(System.getProperty("loadtest.report-dir", "build/reports/loadtest"));
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<String> uploadedAvatars = new ConcurrentLinkedQueue<>();
+
+    private final String profile;
+    private final List<Integer> concurrencyLevels;
+
+    private String baseUrl;
+    private PowerLawGraph graph;
+    private List<UUID> stormFollowers;
+    private byte[] avatar;
+    private int concurrency;
+    private List<LoadReport.ScenarioResult> results;
+
+    LoadTest(String profile, List<Integer> concurrencyLevels) {
+        this.profile = profile;
+        this.concurrencyLevels = concurrencyLevels;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new LoadTest(System.getProperty("loadtest.profile", ""), List.of(Integer.getInteger("loadtest.concurrency", 64))).run();
+    }
+
+    // Seeds once, then runs every scenario at each concurrency level; returns the results per level
+    Map<Integer, List<LoadReport.ScenarioResult>> run() throws Exception {
+        Map<Integer, List<LoadReport.ScenarioResult>> byLevel = new LinkedHashMap<>();
+        try (FakeS3Server s3 = new FakeS3Server();
+             ConfigurableApplicationContext context = startApplication(s3.endpoint())) {
+            baseUrl = "http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port");
+
+            System.out.printf("Seeding %d users with ~%d follows each%n", users, followsPerUser);
+            graph = new PowerLawGraph(users, 1.1, 42);
+            graph.seed(context.getBean(JdbcTemplate.class), followsPerUser);
+            stormFollowers = graph.notFollowingTop();
+            context.getBean(UserSearchIndex.class).rebuild();
+            avatar = samplePng();
+
+            for (int level : concurrencyLevels) {
+                concurrency = level;
+                results = new ArrayList<>();
+                scenario("profile-read", this::profileRead);
+                scenario("search-as-you-type", this::searchAsYouType);
+                scenario("follow-storm", this::followStorm);
+                scenario("avatar-upload", this::avatarUpload);
+                scenario("image-proxy", this::imageProxy);
+
+                Path report = new LoadReport(profileName(), users, concurrency, duration).write(reportDir, results);
+                System.out.println("Report written to " + report.toAbsolutePath());
+                byLevel.put(level, results);
+            }
+        }
+        return byLevel;
+    }
+
+    String profileName() {
+        return profile.isEmpty() ? "default" : profile;
+    }
+
+    private ConfigurableApplicationContext startApplication(String s3Endpoint) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        // Named per run so a second application in the same JVM does not see the first one's rows
+        properties.put("spring.datasource.url", "jdbc:h2:mem:loadtest-" + profileName() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        properties.put("spring.datasource.username", "sa");
+        properties.put("spring.datasource.password", "");
+        properties.put("spring.jpa.database-platform", "org.hibernate.dialect.H2Dialect");
+        properties.put("spring.jpa.hibernate.ddl-auto", "create");
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("spring.jpa.properties.hibernate.type.preferred_uuid_jdbc_type", "BINARY");
+        properties.put("spring.cloud.discovery.enabled", "false");
+        properties.put("eureka.client.enabled", "false");
+        properties.put("minio.endpoint", s3Endpoint);
+        properties.put("app.upload.presign.secret", "loadtest-upload-token-secret-0123456789");
+        properties.put("app.search.refresh-interval", "PT1H");
+        properties.put("app.follows.counters.reconcile-initial-delay", "PT1H");
+        properties.put("logging.level.root", "WARN");
+
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(UserServiceApplication.class).properties(properties);
+        if (!profile.isEmpty()) {
+            builder.profiles(profile);
+        }
+        return builder.run();
+    }
+
+    private interface Operation {
+        void run() throws Exception;
+    }
+
+    private void scenario(String name, Operation operation) throws InterruptedException {
+        System.out.printf("Running %s: %s warmup, %s measured, %d clients%n", name, warmup, duration, concurrency);
+        drive(operation, warmup);
+        stats.values().forEach(EndpointStats::reset);
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getTotalThreadAllocatedBytes();
+        Instant start = Instant.now();
+        drive(operation, duration);
+        Duration elapsed = Duration.between(start, Instant.now());
+        long allocated = threads.getTotalThreadAllocatedBytes() - allocatedBefore;
+
+        results.add(new LoadReport.ScenarioResult(name, elapsed, allocated, List.copyOf(stats.values())));
+        stats.clear();
+    }
+
+    // Closed loop: each client waits for its response before sending the next request
+    private void drive(Operation operation, Duration window) throws InterruptedException {
+        long deadline = System.nanoTime() + window.toNanos();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                clients.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        try {
+                            operation.run();
+                        } catch (Exception e) {
+                            // Already counted as an error by the endpoint that failed
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    private void profileRead() throws Exception {
+        int user = graph.sample(ThreadLocalRandom.current());
+        send("GET /api/users/{username}", HttpRequest.newBuilder(uri("/api/users/" + PowerLawGraph.username(user))).GET());
+    }
+
+    // One request per keystroke of a username being typed
+    private void searchAsYouType() throws Exception {
+        String username = PowerLawGraph.username(graph.sample(ThreadLocalRandom.current()));
+        for (int length = 2; length <= username.length(); length++) {
+            String query = URLEncoder.encode(username.substring(0, length), StandardCharsets.UTF_8);
+            send("GET /api/users/search", HttpRequest.newBuilder(uri("/api/users/search?limit=10&query=" + query)).GET());
+        }
+    }
+
+    // Many users following and unfollowing the most popular account at once. Most users already follow it, and
+    // their DELETE would drain its seeded followers for every later scenario and level, so only the rest take part.
+    private void followStorm() throws Exception {
+        UUID celebrity = graph.ids().get(0);
+        UUID follower = stormFollowers.get(ThreadLocalRandom.current().nextInt(stormFollowers.size()));
+        String path = "/api/users/" + follower + "/follow/" + celebrity;
+        send("POST /api/users/{id}/follow/{id}", HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.noBody()));
+        send("DELETE /api/users/{id}/follow/{id}", HttpRequest.newBuilder(uri(path)).DELETE());
+    }
+
+    private void avatarUpload() throws Exception {
+        UUID user = graph.ids().get(ThreadLocalRandom.current().nextInt(users));
+        HttpResponse<String> response = send("PUT /api/users/{id}/avatar",
+                HttpRequest.newBuilder(uri("/api/users/" + user + "/avatar"))
+                        .header("Content-Type", "image/png")
+                        .PUT(HttpRequest.BodyPublishers.ofByteArray(avatar)));
+        Matcher matcher = AVATAR_URL.matcher(response.body());
+        if (matcher.find() && uploadedAvatars.size() < 10_000) {
+            uploadedAvatars.add(matcher.group(1));
+        }
+    }
+
+    private void imageProxy() throws Exception {
+        List<String> urls = List.copyOf(uploadedAvatars);
+        if (urls.isEmpty()) {
+            return;
+        }
+        String url = urls.get(ThreadLocalRandom.current().nextInt(urls.size()));
+        send("GET /api/images/proxy", HttpRequest.newBuilder(
+                uri("/api/images/proxy?url=" + URLEncoder.encode(url, StandardCharsets.UTF_8))).GET());
+    }
+
+    private HttpResponse<String> send(String endpoint, HttpRequest.Builder request) throws IOException, InterruptedException {
+        EndpointStats endpointStats = stats.computeIfAbsent(endpoint, EndpointStats::new);
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            endpointStats.record(start, response.statusCode() < 400);
+            return response;
+        } catch (IOException | InterruptedException e) {
+            endpointStats.record(start, false);
+            throw e;
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    private static byte[] samplePng() throws IOException {
+        BufferedImage image = new BufferedImage(600, 600, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        Random random = new Random(7);
+        for (int i = 0; i < 200; i++) {
+            graphics.setColor(new Color(random.nextInt(0xFFFFFF)));
+            graphics.fillOval(random.nextInt(600), random.nextInt(600), 40, 40);
+        }
+        graphics.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
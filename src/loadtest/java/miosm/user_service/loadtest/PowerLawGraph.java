@@ -0,0 +1,86 @@
+package miosm.user_service.loadtest;
+
+import miosm.user_service.fixtures.SeedWriter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+// Generates users whose follower counts follow a Zipf distribution: user 0 is the most followed, user n-1 the least
+final class PowerLawGraph {
+
+    private final int users;
+    private final double[] cumulative;
+    private final Random random;
+    private final List<UUID> ids;
+    private final BitSet followsTop = new BitSet();
+
+    PowerLawGraph(int users, double exponent, long seed) {
+        this.users = users;
+        this.random = new Random(seed);
+        this.cumulative = new double[users];
+        double total = 0;
+        for (int rank = 0; rank < users; rank++) {
+            total += 1.0 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = total;
+        }
+        for (int rank = 0; rank < users; rank++) {
+            cumulative[rank] /= total;
+        }
+        this.ids = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            ids.add(new UUID(random.nextLong(), random.nextLong()));
+        }
+    }
+
+    List<UUID> ids() {
+        return ids;
+    }
+
+    // Users with no seeded edge to user 0, so following and unfollowing it leaves the graph as seeded
+    List<UUID> notFollowingTop() {
+        List<UUID> result = new ArrayList<>();
+        for (int i = 1; i < users; i++) {
+            if (!followsTop.get(i)) {
+                result.add(ids.get(i));
+            }
+        }
+        return result;
+    }
+
+    static String username(int index) {
+        return "user" + index;
+    }
+
+    // Popular users are picked more often, which also makes profile reads skewed like real traffic
+    int sample(Random source) {
+        int index = Arrays.binarySearch(cumulative, source.nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, users - 1);
+    }
+
+    void seed(JdbcTemplate jdbcTemplate, int followsPerUser) {
+        SeedWriter writer = new SeedWriter(jdbcTemplate);
+        for (int i = 0; i < users; i++) {
+            writer.user(ids.get(i), username(i), "bio of " + username(i), null);
+        }
+
+        LocalDateTime base = LocalDateTime.now().minusDays(30);
+        for (int follower = 0; follower < users; follower++) {
+            for (int n = 0; n < followsPerUser; n++) {
+                int target = sample(random);
+                if (target != follower) {
+                    if (target == 0) {
+                        followsTop.set(follower);
+                    }
+                    writer.follow(ids.get(follower), ids.get(target), base.plusSeconds(random.nextInt(30 * 24 * 3600)));
+                }
+            }
+        }
+        writer.finish();
+    }
+}
@@ -0,0 +1,27 @@
+package miosm.user_service.loadtest;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+// Runs the load test with the platform thread pool and then on virtual threads at each of
+// -Dloadtest.concurrency-levels (default 16,64,256,1024) and writes a side-by-side table
+public final class ThreadModelComparison {
+
+    public static void main(String[] args) throws Exception {
+        List<Integer> levels = Arrays.stream(System.getProperty("loadtest.concurrency-levels", "16,64,256,1024").split(","))
+                .map(String::trim)
+                .map(Integer::valueOf)
+                .toList();
+        Path reportDir = Path.of(System.getProperty("loadtest.report-dir", "build/reports/loadtest"));
+
+        LoadTest platform = new LoadTest("", levels);
+        Map<Integer, List<LoadReport.ScenarioResult>> platformResults = platform.run();
+        LoadTest virtual = new LoadTest("virtual-threads", levels);
+        Map<Integer, List<LoadReport.ScenarioResult>> virtualResults = virtual.run();
+
+        Path report = LoadReport.writeComparison(reportDir, "platform", platformResults, "virtual", virtualResults);
+        System.out.println("Comparison written to " + report.toAbsolutePath());
+    }
+}
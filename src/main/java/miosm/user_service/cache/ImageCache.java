@@ -0,0 +1,180 @@
+package miosm.user_service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+@Slf4j
+@Component
+public class ImageCache {
+
+    private final Cache<String, HeapEntry> heap;
+    private final Cache<String, DiskEntry> disk;
+    private final Path diskDir;
+    private final long heapMaxObject;
+    private final long diskMaxObject;
+    private final long deleteDelayNanos;
+    private final Queue<RetiredFile> retired = new ConcurrentLinkedQueue<>();
+
+    private final Counter heapHits;
+    private final Counter diskHits;
+    private final Counter misses;
+    private final Counter bytesSaved;
+
+    public ImageCache(MeterRegistry meterRegistry,
+                      @Value("${app.images.cache.heap-max-size:64MB}") DataSize heapMaxSize,
+                      @Value("${app.images.cache.heap-max-object:64KB}") DataSize heapMaxObject,
+                      @Value("${app.images.cache.disk-dir:${java.io.tmpdir}/user-service-image-cache}") String diskDir,
+                      @Value("${app.images.cache.disk-max-size:2GB}") DataSize diskMaxSize,
+                      @Value("${app.images.cache.disk-max-object:8MB}") DataSize diskMaxObject,
+                      @Value("${app.images.cache.disk-delete-delay:PT10S}") Duration diskDeleteDelay) throws IOException {
+        this.heapMaxObject = heapMaxObject.toBytes();
+        this.diskMaxObject = diskMaxObject.toBytes();
+        this.deleteDelayNanos = diskDeleteDelay.toNanos();
+        this.diskDir = Paths.get(diskDir);
+
+        // Entries are only tracked in memory, so files left by a previous run are unreachable
+        FileSystemUtils.deleteRecursively(this.diskDir);
+        Files.createDirectories(this.diskDir);
+
+        this.heap = Caffeine.newBuilder()
+                .maximumWeight(heapMaxSize.toBytes())
+                .weigher((String key, HeapEntry entry) -> entry.content().length)
+                .recordStats()
+                .build();
+        this.disk = Caffeine.newBuilder()
+                .maximumWeight(diskMaxSize.toBytes())
+                .weigher((String key, DiskEntry entry) -> (int) Math.min(entry.metadata().size(), Integer.MAX_VALUE))
+                .removalListener((String key, DiskEntry entry, RemovalCause cause) -> {
+                    // Every put writes a new file, so a replaced entry's file is as dead as an evicted one's.
+                    // A sendfile response may not have opened the file yet; once it has, unlinking is harmless.
+                    if (entry != null) {
+                        retired.add(new RetiredFile(entry.path(), System.nanoTime() + deleteDelayNanos));
+                    }
+                })
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, heap, "images.heap");
+        CaffeineCacheMetrics.monitor(meterRegistry, disk, "images.disk");
+        Gauge.builder("users.images.cache.size", heap, cache -> cache.policy().eviction().orElseThrow().weightedSize().orElse(0))
+                .tag("tier", "heap").baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("users.images.cache.size", disk, cache -> cache.policy().eviction().orElseThrow().weightedSize().orElse(0))
+                .tag("tier", "disk").baseUnit("bytes").register(meterRegistry);
+        this.heapHits = Counter.builder("users.images.cache.requests").tag("result", "heap").register(meterRegistry);
+        this.diskHits = Counter.builder("users.images.cache.requests").tag("result", "disk").register(meterRegistry);
+        this.misses = Counter.builder("users.images.cache.requests").tag("result", "miss").register(meterRegistry);
+        this.bytesSaved = Counter.builder("users.images.cache.bytes.saved").baseUnit("bytes").register(meterRegistry);
+    }
+
+    public HeapEntry getHeap(String key) {
+        HeapEntry entry = heap.getIfPresent(key);
+        if (entry != null) {
+            heapHits.increment();
+        }
+        return entry;
+    }
+
+    public DiskEntry getDisk(String key) {
+        DiskEntry entry = disk.getIfPresent(key);
+        if (entry != null && !Files.exists(entry.path())) {
+            disk.invalidate(key);
+            return null;
+        }
+        if (entry != null) {
+            diskHits.increment();
+        }
+        return entry;
+    }
+
+    public void recordMiss() {
+        misses.increment();
+    }
+
+    public void recordServed(long bytes) {
+        bytesSaved.increment(bytes);
+    }
+
+    public boolean fitsHeap(ImageMetadata metadata) {
+        return metadata.size() <= heapMaxObject;
+    }
+
+    public boolean fitsDisk(ImageMetadata metadata) {
+        return metadata.size() <= diskMaxObject;
+    }
+
+    public HeapEntry putHeap(String key, ImageMetadata metadata, InputStream content) throws IOException {
+        HeapEntry entry = new HeapEntry(metadata, content.readAllBytes());
+        heap.put(key, entry);
+        return entry;
+    }
+
+    public DiskEntry putDisk(String key, ImageMetadata metadata, InputStream content) throws IOException {
+        Path target = diskDir.resolve(UUID.randomUUID().toString());
+        Path partial = diskDir.resolve(target.getFileName() + ".part");
+        try {
+            Files.copy(content, partial);
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            deleteQuietly(partial);
+            throw e;
+        }
+        DiskEntry entry = new DiskEntry(metadata, target);
+        disk.put(key, entry);
+        return entry;
+    }
+
+    public void invalidate(String key) {
+        heap.invalidate(key);
+        disk.invalidate(key);
+    }
+
+    // Retired files all wait the same delay, so the queue is ordered by deadline
+    @Scheduled(fixedDelayString = "${app.images.cache.disk-delete-delay:PT10S}")
+    public void deleteRetired() {
+        long now = System.nanoTime();
+        RetiredFile file;
+        while ((file = retired.peek()) != null && now - file.deleteAfter() >= 0) {
+            retired.poll();
+            deleteQuietly(file.path());
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete cached image {}: {}", path, e.getMessage());
+        }
+    }
+
+    public record HeapEntry(ImageMetadata metadata, byte[] content) {
+    }
+
+    public record DiskEntry(ImageMetadata metadata, Path path) {
+    }
+
+    private record RetiredFile(Path path, long deleteAfter) {
+    }
+}
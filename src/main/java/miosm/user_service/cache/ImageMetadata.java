@@ -0,0 +1,4 @@
+package miosm.user_service.cache;
+
+public record ImageMetadata(String contentType, String etag, long lastModified, long size) {
+}
@@ -0,0 +1,200 @@
+package miosm.user_service.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import miosm.user_service.dto.UserResponseDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+@Component
+public class UserProfileCache {
+
+    // Values are futures so a miss only installs a placeholder under the map lock; the query runs on the
+    // caller's thread afterwards and concurrent misses for the same key wait on that placeholder
+    private final AsyncCache<UUID, UserResponseDto> byId;
+    private final AsyncCache<String, UUID> idByUsername;
+
+    // Bumped on every eviction; a load that overlapped one may hold a pre-update row and must not stay cached
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Counter coalescedById;
+    private final Counter coalescedByUsername;
+
+    public UserProfileCache(MeterRegistry meterRegistry,
+                            @Value("${app.cache.profile.max-size:50000}") long maxSize,
+                            @Value("${app.cache.profile.ttl:10m}") Duration ttl) {
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        this.idByUsername = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, byId.synchronous(), "users.profile.by-id");
+        CaffeineCacheMetrics.monitor(meterRegistry, idByUsername.synchronous(), "users.profile.by-username");
+        // Callers that found a load for the same key in flight and waited for it instead of querying
+        this.coalescedById = Counter.builder("users.profile.loads.coalesced").tag("index", "id").register(meterRegistry);
+        this.coalescedByUsername = Counter.builder("users.profile.loads.coalesced").tag("index", "username").register(meterRegistry);
+    }
+
+    // An evict during the load removes the placeholder, so the result is handed to the waiting callers but not cached
+    public UserResponseDto getById(UUID id, Supplier<UserResponseDto> loader) {
+        CompletableFuture<UserResponseDto> pending = new CompletableFuture<>();
+        CompletableFuture<UserResponseDto> future = byId.get(id, (key, executor) -> pending);
+        if (future == pending) {
+            UserResponseDto user = load(pending, loader);
+            idByUsername.put(key(user.getUsername()), CompletableFuture.completedFuture(id));
+            return copy(user);
+        }
+        if (!future.isDone()) {
+            coalescedById.increment();
+        }
+        return copy(join(future));
+    }
+
+    public UserResponseDto getByUsername(String username, Supplier<UserResponseDto> loader) {
+        UserResponseDto cached = getByUsername(username);
+        if (cached != null) {
+            return cached;
+        }
+
+        long loadedAt = generation();
+        CompletableFuture<UUID> pending = new CompletableFuture<>();
+        CompletableFuture<UUID> future = idByUsername.get(key(username), (key, executor) -> pending);
+        if (future == pending) {
+            UserResponseDto user;
+            try {
+                user = copy(loader.get());
+            } catch (RuntimeException e) {
+                pending.completeExceptionally(e);
+                throw e;
+            }
+            byId.put(user.getId(), CompletableFuture.completedFuture(user));
+            pending.complete(user.getId());
+            // The id entry is not covered by the username placeholder, so an overlapping evict needs the generation check
+            if (generation.get() != loadedAt) {
+                byId.synchronous().invalidate(user.getId());
+                idByUsername.synchronous().invalidate(key(username));
+            }
+            return copy(user);
+        }
+
+        if (!future.isDone()) {
+            coalescedByUsername.increment();
+        }
+        UUID id = join(future);
+        // Joined another caller's load; fall back to the database if the entry is already gone again
+        UserResponseDto user = completed(byId.getIfPresent(id));
+        if (user == null || !username.equalsIgnoreCase(user.getUsername())) {
+            return copy(loader.get());
+        }
+        return copy(user);
+    }
+
+    public UserResponseDto getById(UUID id) {
+        return copy(completed(byId.getIfPresent(id)));
+    }
+
+    public UserResponseDto getByUsername(String username) {
+        UUID id = completed(idByUsername.getIfPresent(key(username)));
+        if (id == null) {
+            return null;
+        }
+        UserResponseDto user = completed(byId.getIfPresent(id));
+        // The id entry may have been evicted or renamed independently of the username index
+        if (user == null || !username.equalsIgnoreCase(user.getUsername())) {
+            return null;
+        }
+        return copy(user);
+    }
+
+    // Read before querying the database and pass to put, so a row read before a concurrent update is dropped
+    public long generation() {
+        return generation.get();
+    }
+
+    public void put(UserResponseDto user, long loadedAt) {
+        UserResponseDto cached = copy(user);
+        byId.put(cached.getId(), CompletableFuture.completedFuture(cached));
+        idByUsername.put(key(cached.getUsername()), CompletableFuture.completedFuture(cached.getId()));
+        // Checked after the put: an eviction either ran later and removed it, or bumped the generation first
+        if (generation.get() != loadedAt) {
+            byId.synchronous().invalidate(cached.getId());
+            idByUsername.synchronous().invalidate(key(cached.getUsername()));
+        }
+    }
+
+    public void evict(UUID id, String username) {
+        generation.incrementAndGet();
+        byId.synchronous().invalidate(id);
+        if (username != null) {
+            idByUsername.synchronous().invalidate(key(username));
+        }
+    }
+
+    // A failed load completes the placeholder exceptionally, which also removes it from the cache
+    private static UserResponseDto load(CompletableFuture<UserResponseDto> pending, Supplier<UserResponseDto> loader) {
+        try {
+            UserResponseDto user = copy(loader.get());
+            pending.complete(user);
+            return user;
+        } catch (RuntimeException e) {
+            pending.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // Waiting callers see the loader's own exception, not a CompletionException around it
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Peeks never wait for a load in flight
+    private static <V> V completed(CompletableFuture<V> future) {
+        return future != null && future.isDone() && !future.isCompletedExceptionally() ? future.join() : null;
+    }
+
+    // Entries are private copies, so a caller mutating its DTO cannot change what others are served
+    private static UserResponseDto copy(UserResponseDto user) {
+        if (user == null) {
+            return null;
+        }
+        return new UserResponseDto(user.getId(), user.getUsername(), user.getBio(),
+                user.getAvatarUrl(), user.getCoverImageUrl(),
+                copy(user.getAvatarRenditions()), copy(user.getCoverImageRenditions()),
+                user.getCreatedAt(), user.getUpdatedAt());
+    }
+
+    private static Map<String, String> copy(Map<String, String> renditions) {
+        return renditions == null ? null : Collections.unmodifiableMap(new LinkedHashMap<>(renditions));
+    }
+
+    private static String key(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,71 @@
+package miosm.user_service.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import miosm.user_service.follow.ConsistentHashRing;
+import miosm.user_service.follow.FollowShards;
+import miosm.user_service.repository.SubscriptionRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Configuration
+@ConditionalOnProperty(name = "app.follows.store", havingValue = "sharded")
+@EnableConfigurationProperties(FollowShardProperties.class)
+public class FollowShardConfig {
+
+    // The pools are not DataSource beans, so Boot keeps auto-configuring the primary one for JPA
+    @Bean(destroyMethod = "close")
+    public FollowShards followShards(FollowShardProperties properties, SubscriptionRepository subscriptionRepository) {
+        if (properties.getShards().isEmpty()) {
+            throw new IllegalStateException("app.follows.store=sharded needs at least one app.follows.sharding.shards entry");
+        }
+        // Nothing copies existing edges to the shards; starting anyway would hide every follow and the next
+        // counter reconciliation would zero the counters
+        if (subscriptionRepository.existsByIdNotNull()) {
+            throw new IllegalStateException("app.follows.store=sharded is for new installs only, " +
+                    "but the subscriptions table already holds follows");
+        }
+
+        List<String> current = properties.getShards().stream().map(FollowShardProperties.Shard::getName).toList();
+        Set<String> connected = new HashSet<>(current);
+        properties.getRetiringShards().forEach(shard -> connected.add(shard.getName()));
+        for (String previous : properties.getPreviousShards()) {
+            // Without a pool its rows could be neither read nor moved, and would silently disappear
+            if (!connected.contains(previous)) {
+                throw new IllegalStateException("Previous follow shard " + previous +
+                        " needs an app.follows.sharding.shards or retiring-shards entry");
+            }
+        }
+
+        Map<String, HikariDataSource> dataSources = new LinkedHashMap<>();
+        ResourceDatabasePopulator schema = new ResourceDatabasePopulator(new ClassPathResource("follow-shard-schema.sql"));
+        List<FollowShardProperties.Shard> shards = new ArrayList<>(properties.getShards());
+        shards.addAll(properties.getRetiringShards());
+        for (FollowShardProperties.Shard shard : shards) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("follow-shard-" + shard.getName());
+            dataSource.setJdbcUrl(shard.getUrl());
+            dataSource.setUsername(shard.getUsername());
+            dataSource.setPassword(shard.getPassword());
+            dataSource.setMaximumPoolSize(shard.getMaximumPoolSize());
+            schema.execute(dataSource);
+            dataSources.put(shard.getName(), dataSource);
+        }
+
+        ConsistentHashRing ring = new ConsistentHashRing(current, properties.getVirtualNodes());
+        ConsistentHashRing previousRing = properties.getPreviousShards().isEmpty()
+                ? null
+                : new ConsistentHashRing(properties.getPreviousShards(), properties.getVirtualNodes());
+        return new FollowShards(dataSources, ring, previousRing);
+    }
+}
@@ -0,0 +1,37 @@
+package miosm.user_service.config;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@ConfigurationProperties(prefix = "app.follows.sharding")
+@Getter
+@Setter
+@NoArgsConstructor
+public class FollowShardProperties {
+
+    private List<Shard> shards = new ArrayList<>();
+
+    // Shard names before the last membership change; reads also consult them until a rebalance has finished
+    private List<String> previousShards = new ArrayList<>();
+
+    // Shards being removed: out of the ring, but still connected so their rows can be read and moved off
+    private List<Shard> retiringShards = new ArrayList<>();
+
+    private int virtualNodes = 128;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    public static class Shard {
+        private String name;
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
@@ -0,0 +1,44 @@
+package miosm.user_service.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.Set;
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    // Entries are a meter name or "<meter>.<operation>", where the operation is the method or operation tag
+    @Bean
+    public MeterFilter operationHistograms(@Value("${app.metrics.histograms:}") List<String> histograms) {
+        Set<String> keys = Set.copyOf(histograms);
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (id.getType() != Meter.Type.TIMER && id.getType() != Meter.Type.DISTRIBUTION_SUMMARY) {
+                    return config;
+                }
+                String operation = id.getTag("method") != null ? id.getTag("method") : id.getTag("operation");
+                if (keys.contains(id.getName()) || (operation != null && keys.contains(id.getName() + "." + operation))) {
+                    return DistributionStatisticConfig.builder()
+                            .percentilesHistogram(true)
+                            .build()
+                            .merge(config);
+                }
+                return config;
+            }
+        };
+    }
+}
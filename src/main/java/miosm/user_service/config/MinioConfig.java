@@ -0,0 +1,59 @@
+package miosm.user_service.config;
+
+import io.minio.MinioClient;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class MinioConfig {
+
+    @Value("${minio.endpoint}")
+    private String endpoint;
+
+    @Value("${minio.access-key}")
+    private String accessKey;
+
+    @Value("${minio.secret-key}")
+    private String secretKey;
+
+    @Value("${minio.client.max-idle-connections:32}")
+    private int maxIdleConnections;
+
+    @Value("${minio.client.keep-alive:5m}")
+    private Duration keepAlive;
+
+    @Value("${minio.client.connect-timeout:5s}")
+    private Duration connectTimeout;
+
+    @Value("${minio.client.read-timeout:30s}")
+    private Duration readTimeout;
+
+    @Value("${minio.client.write-timeout:60s}")
+    private Duration writeTimeout;
+
+    @Bean
+    public OkHttpClient minioHttpClient() {
+        return new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(maxIdleConnections, keepAlive.toMillis(), TimeUnit.MILLISECONDS))
+                .connectTimeout(connectTimeout)
+                .readTimeout(readTimeout)
+                .writeTimeout(writeTimeout)
+                .retryOnConnectionFailure(true)
+                .build();
+    }
+
+    @Bean
+    public MinioClient minioClient(OkHttpClient minioHttpClient) {
+        return MinioClient.builder()
+                .endpoint(endpoint)
+                .credentials(accessKey, secretKey)
+                .httpClient(minioHttpClient)
+                .build();
+    }
+}
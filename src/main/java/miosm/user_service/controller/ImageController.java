@@ -1,17 +1,36 @@
 package miosm.user_service.controller;
 
+import io.minio.StatObjectResponse;
+import io.minio.errors.ErrorResponseException;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import miosm.user_service.cache.ImageCache;
+import miosm.user_service.cache.ImageMetadata;
+import miosm.user_service.service.MinioService;
+import miosm.user_service.util.AsyncStreamWriter;
+import miosm.user_service.util.SliceInputStream;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpRange;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.net.URL;
-import java.net.URLConnection;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
 
 @Slf4j
 @RestController
@@ -20,42 +39,181 @@ import java.net.URLConnection;
 @CrossOrigin(origins = "http://localhost:4200")
 public class ImageController {
 
-    @Value("${minio.endpoint}")
-    private String minioEndpoint;
+    // Object keys are random UUIDs that are never rewritten, so a cached copy can never go stale
+    private static final String IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable().getHeaderValue();
 
-    @Value("${minio.bucket}")
-    private String bucket;
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final MinioService minioService;
+    private final ImageCache imageCache;
+
+    @Value("${app.images.proxy.async-timeout:60s}")
+    private Duration asyncTimeout;
+
+    @Value("${app.images.proxy.buffer-size:16KB}")
+    private DataSize bufferSize;
 
     @GetMapping("/proxy")
-    public ResponseEntity<InputStreamResource> proxyImage(@RequestParam String url) {
+    public void proxyImage(@RequestParam String url, HttpServletRequest request, HttpServletResponse response) throws IOException {
         try {
             
-            if (!url.startsWith(minioEndpoint + "/" + bucket + "/")) {
-                return ResponseEntity.badRequest().build();
+            if (!minioService.isManagedUrl(url)) {
+                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                return;
             }
 
-            URL imageUrl = new URL(url);
-            URLConnection connection = imageUrl.openConnection();
-            InputStream inputStream = connection.getInputStream();
-            
-            String contentType = connection.getContentType();
-            if (contentType == null) {
-                contentType = "image/jpeg"; 
+            String objectKey = minioService.objectKey(url);
+            ImageCache.HeapEntry heapEntry = imageCache.getHeap(objectKey);
+            ImageCache.DiskEntry diskEntry = heapEntry == null ? imageCache.getDisk(objectKey) : null;
+            ImageMetadata metadata;
+            if (heapEntry != null) {
+                metadata = heapEntry.metadata();
+            } else if (diskEntry != null) {
+                metadata = diskEntry.metadata();
+            } else {
+                imageCache.recordMiss();
+                metadata = toMetadata(minioService.statObject(objectKey));
+            }
+
+            response.setHeader("Access-Control-Allow-Origin", "http://localhost:4200");
+            response.setHeader("Access-Control-Allow-Methods", "GET");
+            response.setHeader("Access-Control-Allow-Headers", "*");
+            response.setHeader(HttpHeaders.CACHE_CONTROL, IMMUTABLE);
+            response.setHeader(HttpHeaders.ETAG, metadata.etag());
+            response.setDateHeader(HttpHeaders.LAST_MODIFIED, metadata.lastModified());
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+            if (notModified(request, metadata)) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+
+            long size = metadata.size();
+            long start = 0;
+            long end = size - 1;
+            HttpRange range = singleRange(request.getHeader(HttpHeaders.RANGE));
+            if (range != null) {
+                try {
+                    start = range.getRangeStart(size);
+                    end = range.getRangeEnd(size);
+                } catch (IllegalArgumentException e) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
             }
+            long length = end - start + 1;
+            response.setContentType(metadata.contentType());
+            response.setContentLengthLong(length);
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.add("Access-Control-Allow-Origin", "http://localhost:4200");
-            headers.add("Access-Control-Allow-Methods", "GET");
-            headers.add("Access-Control-Allow-Headers", "*");
-            headers.setContentType(MediaType.parseMediaType(contentType));
+            if (heapEntry == null && diskEntry == null) {
+                if (imageCache.fitsHeap(metadata)) {
+                    try (InputStream content = minioService.getObject(objectKey)) {
+                        heapEntry = imageCache.putHeap(objectKey, metadata, content);
+                    }
+                } else if (imageCache.fitsDisk(metadata)) {
+                    try (InputStream content = minioService.getObject(objectKey)) {
+                        diskEntry = imageCache.putDisk(objectKey, metadata, content);
+                    }
+                } else {
+                    writeAsync(request, minioService.getObject(objectKey, start, length));
+                    return;
+                }
+            } else {
+                imageCache.recordServed(length);
+            }
 
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(new InputStreamResource(inputStream));
+            if (heapEntry != null) {
+                writeAsync(request, new ByteArrayInputStream(heapEntry.content(), (int) start, (int) length));
+            } else {
+                sendFile(request, diskEntry.path(), start, length);
+            }
 
+        } catch (ErrorResponseException e) {
+            if ("NoSuchKey".equals(e.errorResponse().code())) {
+                response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            log.error("Failed to proxy image: {}", e.getMessage());
+            response.setStatus(HttpServletResponse.SC_BAD_GATEWAY);
+        } catch (IOException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Failed to proxy image: {}", e.getMessage());
-            return ResponseEntity.notFound().build();
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+        }
+    }
+
+    private void sendFile(HttpServletRequest request, Path path, long start, long length) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat hands the file to the kernel after the servlet returns, without copying it through the heap
+            request.setAttribute(SENDFILE_FILENAME, path.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + length);
+            return;
+        }
+        // Without sendfile the slice is copied through the async writer's heap buffer
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        channel.position(start);
+        writeAsync(request, new SliceInputStream(Channels.newInputStream(channel), length));
+    }
+
+    private void writeAsync(HttpServletRequest request, InputStream content) throws IOException {
+        AsyncContext asyncContext = request.startAsync();
+        asyncContext.setTimeout(asyncTimeout.toMillis());
+        AsyncStreamWriter.start(asyncContext, content, (int) bufferSize.toBytes());
+    }
+
+    private static ImageMetadata toMetadata(StatObjectResponse stat) {
+        String contentType = stat.contentType();
+        if (contentType == null) {
+            contentType = "image/jpeg"; 
+        }
+        return new ImageMetadata(contentType, "\"" + stat.etag() + "\"",
+                stat.lastModified().toInstant().toEpochMilli(), stat.size());
+    }
+
+    private static boolean notModified(HttpServletRequest request, ImageMetadata metadata) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(metadata.etag())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        String ifModifiedSince = request.getHeader(HttpHeaders.IF_MODIFIED_SINCE);
+        if (ifModifiedSince != null) {
+            try {
+                ZonedDateTime since = ZonedDateTime.parse(ifModifiedSince, DateTimeFormatter.RFC_1123_DATE_TIME);
+                return metadata.lastModified() / 1000 <= since.toEpochSecond();
+            } catch (DateTimeParseException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static HttpRange singleRange(String range) {
+        if (range == null) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(range);
+            // Multipart/byteranges responses are not worth it for images; serve the whole object instead
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
         }
     }
 }
@@ -1,21 +1,45 @@
 package miosm.user_service.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import miosm.user_service.dto.CompleteUploadRequestDto;
 import miosm.user_service.dto.CreateUserRequestDto;
+import miosm.user_service.dto.CursorPageDto;
+import miosm.user_service.dto.FollowStatusRequestDto;
+import miosm.user_service.dto.ImageUploadJobDto;
+import miosm.user_service.dto.PresignUploadRequestDto;
+import miosm.user_service.dto.PresignedUploadDto;
 import miosm.user_service.dto.UpdateUserRequestDto;
+import miosm.user_service.dto.UserCardDto;
+import miosm.user_service.dto.UserBatchRequestDto;
+import miosm.user_service.dto.UserBatchResponseDto;
 import miosm.user_service.dto.UserResponseDto;
+import miosm.user_service.entity.ImageKind;
+import miosm.user_service.mapper.ImageUploadJobMapper;
+import miosm.user_service.service.ImageIngestionService;
 import miosm.user_service.service.MinioService;
+import miosm.user_service.service.PresignedUploadService;
+import miosm.user_service.service.UserNotFoundException;
 import miosm.user_service.service.UserService;
+import miosm.user_service.util.LimitedInputStream;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.net.URI;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/users")
@@ -26,6 +50,13 @@ public class UserController {
 
     private final UserService userService;
     private final MinioService minioService;
+    private final ImageIngestionService imageIngestionService;
+    private final ImageUploadJobMapper imageUploadJobMapper;
+    // Absent unless app.upload.presign.secret is configured
+    private final ObjectProvider<PresignedUploadService> presignedUploadService;
+
+    @Value("${app.upload.max-size:10MB}")
+    private DataSize maxUploadSize;
 
     @GetMapping("/{username}")
     public ResponseEntity<UserResponseDto> getUserByUsername(@PathVariable String username) {
@@ -39,6 +70,19 @@ public class UserController {
         return ResponseEntity.ok(user);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<UserBatchResponseDto> getUsers(@RequestBody UserBatchRequestDto dto) {
+        try {
+            UserBatchResponseDto users = userService.findUsers(dto.getIds(), dto.getUsernames());
+            return ResponseEntity.ok(users);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Error resolving user batch: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @PostMapping
     public ResponseEntity<UserResponseDto> createUser(@RequestBody CreateUserRequestDto dto) {
         UserResponseDto createdUser = userService.createUser(dto);
@@ -93,6 +137,177 @@ public class UserController {
         }
     }
 
+    @PutMapping(value = "/{id}/avatar", consumes = "image/*")
+    public ResponseEntity<Map<String, Object>> streamAvatar(@PathVariable UUID id, HttpServletRequest request) {
+        try {
+            long size = request.getContentLengthLong();
+            if (size == 0) {
+                return ResponseEntity.badRequest().body(Map.of("success", false, "message", "No file provided"));
+            }
+            if (size > maxUploadSize.toBytes()) {
+                return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body(Map.of("success", false, "message", "File exceeds " + maxUploadSize));
+            }
+            
+            InputStream content = nonEmpty(new LimitedInputStream(request.getInputStream(), maxUploadSize.toBytes()));
+            if (content == null) {
+                return ResponseEntity.badRequest().body(Map.of("success", false, "message", "No file provided"));
+            }
+            UserResponseDto updatedUser = userService.uploadAvatar(id, content, size, request.getContentType());
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "message", "Avatar uploaded successfully",
+                "avatarUrl", updatedUser.getAvatarUrl(),
+                "user", updatedUser
+            ));
+        } catch (UserNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(Map.of("success", false, "message", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error streaming avatar for user {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("success", false, "message", "Failed to upload avatar: " + e.getMessage()));
+        }
+    }
+
+    @PutMapping(value = "/{id}/coverImage", consumes = "image/*")
+    public ResponseEntity<Map<String, Object>> streamCoverImage(@PathVariable UUID id, HttpServletRequest request) {
+        try {
+            long size = request.getContentLengthLong();
+            if (size == 0) {
+                return ResponseEntity.badRequest().body(Map.of("success", false, "message", "No file provided"));
+            }
+            if (size > maxUploadSize.toBytes()) {
+                return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body(Map.of("success", false, "message", "File exceeds " + maxUploadSize));
+            }
+            
+            InputStream content = nonEmpty(new LimitedInputStream(request.getInputStream(), maxUploadSize.toBytes()));
+            if (content == null) {
+                return ResponseEntity.badRequest().body(Map.of("success", false, "message", "No file provided"));
+            }
+            UserResponseDto updatedUser = userService.uploadCoverImage(id, content, size, request.getContentType());
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "message", "Cover image uploaded successfully",
+                "coverImageUrl", updatedUser.getCoverImageUrl(),
+                "user", updatedUser
+            ));
+        } catch (UserNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(Map.of("success", false, "message", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error streaming cover image for user {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("success", false, "message", "Failed to upload cover image: " + e.getMessage()));
+        }
+    }
+
+    // A chunked body has no Content-Length, so an empty one only shows up on the first read
+    private static InputStream nonEmpty(InputStream content) throws IOException {
+        PushbackInputStream peeked = new PushbackInputStream(content, 1);
+        int first = peeked.read();
+        if (first == -1) {
+            return null;
+        }
+        peeked.unread(first);
+        return peeked;
+    }
+
+    @PostMapping(value = "/{id}/avatar/jobs", consumes = "image/*")
+    public ResponseEntity<ImageUploadJobDto> submitAvatar(@PathVariable UUID id, HttpServletRequest request) {
+        return submitImageJob(id, ImageKind.AVATAR, request);
+    }
+
+    @PostMapping(value = "/{id}/coverImage/jobs", consumes = "image/*")
+    public ResponseEntity<ImageUploadJobDto> submitCoverImage(@PathVariable UUID id, HttpServletRequest request) {
+        return submitImageJob(id, ImageKind.COVER, request);
+    }
+
+    @GetMapping("/uploads/{jobId}")
+    public ResponseEntity<ImageUploadJobDto> getUploadJob(@PathVariable UUID jobId) {
+        try {
+            return ResponseEntity.ok(imageUploadJobMapper.toDto(imageIngestionService.getJob(jobId)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    private ResponseEntity<ImageUploadJobDto> submitImageJob(UUID id, ImageKind kind, HttpServletRequest request) {
+        try {
+            if (request.getContentLengthLong() > maxUploadSize.toBytes()) {
+                return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+            }
+            
+            InputStream content = new LimitedInputStream(request.getInputStream(), maxUploadSize.toBytes());
+            ImageUploadJobDto job = imageUploadJobMapper.toDto(
+                imageIngestionService.submit(id, kind, content, request.getContentType()));
+            return ResponseEntity.accepted()
+                .location(URI.create("/api/users/uploads/" + job.getId()))
+                .body(job);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "5").build();
+        } catch (Exception e) {
+            log.error("Error queueing {} upload for user {}: {}", kind, id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @PostMapping("/{id}/avatar/presign")
+    public ResponseEntity<PresignedUploadDto> presignAvatar(@PathVariable UUID id, @RequestBody PresignUploadRequestDto dto) {
+        return presign(id, ImageKind.AVATAR, dto);
+    }
+
+    @PostMapping("/{id}/avatar/complete")
+    public ResponseEntity<UserResponseDto> completeAvatar(@PathVariable UUID id, @RequestBody CompleteUploadRequestDto dto) {
+        return completeUpload(id, ImageKind.AVATAR, dto);
+    }
+
+    @PostMapping("/{id}/coverImage/presign")
+    public ResponseEntity<PresignedUploadDto> presignCoverImage(@PathVariable UUID id, @RequestBody PresignUploadRequestDto dto) {
+        return presign(id, ImageKind.COVER, dto);
+    }
+
+    @PostMapping("/{id}/coverImage/complete")
+    public ResponseEntity<UserResponseDto> completeCoverImage(@PathVariable UUID id, @RequestBody CompleteUploadRequestDto dto) {
+        return completeUpload(id, ImageKind.COVER, dto);
+    }
+
+    private ResponseEntity<PresignedUploadDto> presign(UUID id, ImageKind kind, PresignUploadRequestDto dto) {
+        PresignedUploadService service = presignedUploadService.getIfAvailable();
+        if (service == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        try {
+            return ResponseEntity.ok(service.presign(id, kind, dto.getContentType(), dto.getSize()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Error presigning {} upload for user {}: {}", kind, id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    private ResponseEntity<UserResponseDto> completeUpload(UUID id, ImageKind kind, CompleteUploadRequestDto dto) {
+        PresignedUploadService service = presignedUploadService.getIfAvailable();
+        if (service == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        try {
+            return ResponseEntity.ok(service.complete(id, kind, dto.getObjectKey(), dto.getUploadToken()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Error completing {} upload for user {}: {}", kind, id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
 
     @DeleteMapping("/{id}/avatar")
     public ResponseEntity<UserResponseDto> deleteAvatar(@PathVariable UUID id) {
@@ -121,14 +336,18 @@ public class UserController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<UserResponseDto>> searchUsers(@RequestParam String query) {
+    public ResponseEntity<CursorPageDto<UserCardDto>> searchUsers(@RequestParam String query,
+                                                                      @RequestParam(required = false) String cursor,
+                                                                      @RequestParam(defaultValue = "20") int limit) {
         try {
             if (query == null || query.trim().isEmpty()) {
                 return ResponseEntity.badRequest().build();
             }
             
-            List<UserResponseDto> users = userService.searchUsers(query);
+            CursorPageDto<UserCardDto> users = userService.searchUsers(query, cursor, limit);
             return ResponseEntity.ok(users);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             log.error("Error searching users with query '{}': {}", query, e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -179,11 +398,29 @@ public class UserController {
         }
     }
 
+    @PostMapping("/{followerId}/following/status")
+    public ResponseEntity<Map<UUID, Boolean>> getFollowingStatus(@PathVariable UUID followerId,
+                                                                 @RequestBody FollowStatusRequestDto dto) {
+        try {
+            Map<UUID, Boolean> status = userService.getFollowingStatus(followerId, dto.getIds());
+            return ResponseEntity.ok(status);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Error checking follow status for user {}: {}", followerId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @GetMapping("/{userId}/followers")
-    public ResponseEntity<List<UserResponseDto>> getFollowers(@PathVariable UUID userId) {
+    public ResponseEntity<CursorPageDto<UserCardDto>> getFollowers(@PathVariable UUID userId,
+                                                                       @RequestParam(required = false) String cursor,
+                                                                       @RequestParam(defaultValue = "20") int limit) {
         try {
-            List<UserResponseDto> followers = userService.getFollowers(userId);
+            CursorPageDto<UserCardDto> followers = userService.getFollowers(userId, cursor, limit);
             return ResponseEntity.ok(followers);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             log.error("Error getting followers for user {}: {}", userId, e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -191,10 +428,14 @@ public class UserController {
     }
 
     @GetMapping("/{userId}/following")
-    public ResponseEntity<List<UserResponseDto>> getFollowing(@PathVariable UUID userId) {
+    public ResponseEntity<CursorPageDto<UserCardDto>> getFollowing(@PathVariable UUID userId,
+                                                                       @RequestParam(required = false) String cursor,
+                                                                       @RequestParam(defaultValue = "20") int limit) {
         try {
-            List<UserResponseDto> following = userService.getFollowing(userId);
+            CursorPageDto<UserCardDto> following = userService.getFollowing(userId, cursor, limit);
             return ResponseEntity.ok(following);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             log.error("Error getting following list for user {}: {}", userId, e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
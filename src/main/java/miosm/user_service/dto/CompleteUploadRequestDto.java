@@ -0,0 +1,15 @@
+package miosm.user_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompleteUploadRequestDto {
+    private String objectKey;
+    private String uploadToken;
+}
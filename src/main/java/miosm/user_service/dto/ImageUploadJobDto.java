@@ -0,0 +1,27 @@
+package miosm.user_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import miosm.user_service.entity.ImageKind;
+import miosm.user_service.entity.ImageUploadStatus;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageUploadJobDto {
+    private UUID id;
+    private UUID userId;
+    private ImageKind kind;
+    private ImageUploadStatus status;
+    private int attempts;
+    private String resultUrl;
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,21 @@
+package miosm.user_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresignedUploadDto {
+    private String uploadUrl;
+    private String objectKey;
+    private String uploadToken;
+    private Map<String, String> formFields;
+    private Instant expiresAt;
+}
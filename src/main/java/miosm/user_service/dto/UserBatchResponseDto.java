@@ -0,0 +1,19 @@
+package miosm.user_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Map;
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserBatchResponseDto {
+    // Unknown ids and usernames are simply absent
+    private Map<UUID, UserResponseDto> byId;
+    private Map<String, UserResponseDto> byUsername;
+}
@@ -0,0 +1,19 @@
+package miosm.user_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserCardDto {
+    private UUID id;
+    private String username;
+    private String avatarUrl;
+    private String avatarThumbnailUrl;
+}
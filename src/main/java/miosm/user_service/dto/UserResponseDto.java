@@ -6,6 +6,7 @@ import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.Map;
 import java.util.UUID;
 
 @Getter
@@ -18,6 +19,8 @@ public class UserResponseDto {
     private String bio;
     private String avatarUrl;
     private String coverImageUrl;
+    private Map<String, String> avatarRenditions;
+    private Map<String, String> coverImageRenditions;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 }
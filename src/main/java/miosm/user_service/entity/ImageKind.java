@@ -0,0 +1,18 @@
+package miosm.user_service.entity;
+
+import miosm.user_service.util.ImageRenditions;
+
+public enum ImageKind {
+    AVATAR(ImageRenditions.AVATARS),
+    COVER(ImageRenditions.COVERS);
+
+    private final String folder;
+
+    ImageKind(String folder) {
+        this.folder = folder;
+    }
+
+    public String getFolder() {
+        return folder;
+    }
+}
@@ -0,0 +1,72 @@
+package miosm.user_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "image_upload_jobs",
+       indexes = @Index(name = "idx_image_upload_jobs_status_next", columnList = "node, status, next_attempt_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageUploadJob {
+
+    @Id
+    @Column(columnDefinition = "BINARY(16)", nullable = false, updatable = false, unique = true)
+    private UUID id;
+
+    @Column(columnDefinition = "BINARY(16)", nullable = false, updatable = false)
+    private UUID userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ImageKind kind;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ImageUploadStatus status;
+
+    @Column(nullable = false, length = 100)
+    private String contentType;
+
+    @Column(nullable = false, length = 100)
+    private String node;
+
+    @Column(nullable = false, length = 500)
+    private String spoolPath;
+
+    @Column(nullable = false)
+    private long size;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(length = 500)
+    private String uploadedObjectKey;
+
+    @Column(length = 500)
+    private String resultUrl;
+
+    @Column(length = 500)
+    private String lastError;
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
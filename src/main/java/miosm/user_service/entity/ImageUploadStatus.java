@@ -0,0 +1,8 @@
+package miosm.user_service.entity;
+
+public enum ImageUploadStatus {
+    PENDING,
+    RUNNING,
+    DONE,
+    FAILED
+}
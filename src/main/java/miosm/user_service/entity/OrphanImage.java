@@ -0,0 +1,46 @@
+package miosm.user_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "orphan_images",
+       uniqueConstraints = @UniqueConstraint(columnNames = "object_key"),
+       indexes = @Index(name = "idx_orphan_images_next_attempt", columnList = "next_attempt_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrphanImage {
+
+    @Id
+    @Column(columnDefinition = "BINARY(16)", nullable = false, updatable = false, unique = true)
+    private UUID id;
+
+    @Column(nullable = false, length = 500)
+    private String objectKey;
+
+    // Issued for a presigned upload that has not been completed yet
+    @Column(columnDefinition = "BOOLEAN DEFAULT FALSE NOT NULL")
+    private boolean pendingUpload;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(length = 500)
+    private String lastError;
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
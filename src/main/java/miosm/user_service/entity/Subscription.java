@@ -12,7 +12,11 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "subscriptions", 
-       uniqueConstraints = @UniqueConstraint(columnNames = {"follower_id", "following_id"}))
+       uniqueConstraints = @UniqueConstraint(columnNames = {"follower_id", "following_id"}),
+       indexes = {
+           @Index(name = "idx_subscriptions_following_created", columnList = "following_id, created_at, id"),
+           @Index(name = "idx_subscriptions_follower_created", columnList = "follower_id, created_at, id")
+       })
 @Getter
 @Setter
 @NoArgsConstructor
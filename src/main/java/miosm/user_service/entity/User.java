@@ -13,7 +13,9 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table (name = "users")
+// updated_at backs the search index's periodic refresh on every instance
+@Table(name = "users",
+       indexes = @Index(name = "idx_users_updated_at", columnList = "updated_at"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -36,6 +38,19 @@ public class User {
     @Column(length = 500)
     private String coverImageUrl;
 
+    // Set once the renditions of the current avatar/cover exist, so their URLs are never advertised early
+    @Column(columnDefinition = "BOOLEAN DEFAULT FALSE NOT NULL")
+    private boolean avatarRenditionsReady;
+
+    @Column(columnDefinition = "BOOLEAN DEFAULT FALSE NOT NULL")
+    private boolean coverImageRenditionsReady;
+
+    @Column(columnDefinition = "BIGINT DEFAULT 0 NOT NULL")
+    private long followersCount;
+
+    @Column(columnDefinition = "BIGINT DEFAULT 0 NOT NULL")
+    private long followingCount;
+
     @CreationTimestamp
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
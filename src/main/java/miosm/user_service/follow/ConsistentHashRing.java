@@ -0,0 +1,57 @@
+package miosm.user_service.follow;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+
+// Maps user ids to shard names; adding or removing a shard only moves the keys adjacent to its virtual nodes
+public final class ConsistentHashRing {
+
+    private final NavigableMap<Long, String> ring = new TreeMap<>();
+    private final List<String> nodes;
+
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("A hash ring needs at least one node");
+        }
+        this.nodes = List.copyOf(nodes);
+        for (String node : this.nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(node + "#" + i), node);
+            }
+        }
+    }
+
+    public List<String> nodes() {
+        return nodes;
+    }
+
+    public String nodeFor(UUID key) {
+        long h = mix(key.getMostSignificantBits() ^ Long.rotateLeft(key.getLeastSignificantBits(), 32));
+        Map.Entry<Long, String> entry = ring.ceilingEntry(h);
+        return (entry != null ? entry : ring.firstEntry()).getValue();
+    }
+
+    // FNV-1a over the name, finished with the MurmurHash3 mixer for a better spread around the ring
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
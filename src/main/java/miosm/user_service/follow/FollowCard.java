@@ -0,0 +1,42 @@
+package miosm.user_service.follow;
+
+import miosm.user_service.repository.projection.FollowCardView;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// FollowCardView assembled in memory when edges and users live in different databases
+record FollowCard(UUID subscriptionId, LocalDateTime followedAt, UUID id, String username, String avatarUrl,
+                  Boolean avatarRenditionsReady)
+        implements FollowCardView {
+
+    @Override
+    public UUID getSubscriptionId() {
+        return subscriptionId;
+    }
+
+    @Override
+    public LocalDateTime getFollowedAt() {
+        return followedAt;
+    }
+
+    @Override
+    public UUID getId() {
+        return id;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public String getAvatarUrl() {
+        return avatarUrl;
+    }
+
+    @Override
+    public Boolean getAvatarRenditionsReady() {
+        return avatarRenditionsReady;
+    }
+}
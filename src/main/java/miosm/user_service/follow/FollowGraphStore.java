@@ -0,0 +1,38 @@
+package miosm.user_service.follow;
+
+import miosm.user_service.repository.projection.FollowCardView;
+import miosm.user_service.util.SubscriptionCursor;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+// Storage for follow edges; selected with app.follows.store (jpa or sharded)
+public interface FollowGraphStore {
+
+    // False when the edge already exists or one of the users does not
+    boolean follow(UUID followerId, UUID followingId);
+
+    boolean unfollow(UUID followerId, UUID followingId);
+
+    boolean isFollowing(UUID followerId, UUID followingId);
+
+    Set<UUID> findFollowed(UUID followerId, Collection<UUID> candidates);
+
+    // Newest first; after is exclusive and may be null for the first page
+    List<FollowCardView> findFollowers(UUID userId, SubscriptionCursor after, int limit);
+
+    List<FollowCardView> findFollowing(UUID userId, SubscriptionCursor after, int limit);
+
+    // Rewrites the denormalized counters on users from the stored edges
+    void reconcileCounts(List<UUID> userIds);
+
+    // Every user following or followed by userId, e.g. to fix their counters before removeUser
+    Set<UUID> findFollowerIds(UUID userId);
+
+    Set<UUID> findFollowingIds(UUID userId);
+
+    // Drops every edge from or to a user that is being deleted
+    void removeUser(UUID userId);
+}
@@ -0,0 +1,176 @@
+package miosm.user_service.follow;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import miosm.user_service.util.UuidBytes;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Moves rows whose owner hashes to a different shard than the one holding them, e.g. after a shard was added.
+// Reads consult the previous ring meanwhile, and a copy whose source row was unfollowed mid-move is dropped again.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.follows.store", havingValue = "sharded")
+@RequiredArgsConstructor
+public class FollowShardRebalancer {
+
+    private final FollowShards shards;
+    private final MeterRegistry meterRegistry;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("follow-rebalance").daemon(true).factory());
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong ownersScanned = new AtomicLong();
+    private final AtomicLong ownersMoved = new AtomicLong();
+    private final AtomicLong rowsMoved = new AtomicLong();
+
+    private volatile boolean lastDryRun;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String lastError;
+
+    @Value("${app.follows.sharding.rebalance.scan-batch-size:1000}")
+    private int scanBatchSize;
+
+    @Value("${app.follows.sharding.rebalance.move-batch-size:500}")
+    private int moveBatchSize;
+
+    @Value("${app.follows.sharding.rebalance.batch-pause:PT0.05S}")
+    private Duration batchPause;
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    // Returns false when a run is already in progress
+    public boolean start(boolean dryRun) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        lastDryRun = dryRun;
+        startedAt = Instant.now();
+        finishedAt = null;
+        lastError = null;
+        ownersScanned.set(0);
+        ownersMoved.set(0);
+        rowsMoved.set(0);
+        executor.execute(() -> run(dryRun));
+        return true;
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", running.get());
+        status.put("dryRun", lastDryRun);
+        status.put("startedAt", startedAt);
+        status.put("finishedAt", finishedAt);
+        status.put("ownersScanned", ownersScanned.get());
+        status.put("ownersMisplaced", ownersMoved.get());
+        status.put("rowsMoved", rowsMoved.get());
+        status.put("lastError", lastError);
+        return status;
+    }
+
+    private void run(boolean dryRun) {
+        try {
+            for (String shard : shards.names()) {
+                for (String table : List.of(ShardedFollowGraphStore.FORWARD, ShardedFollowGraphStore.REVERSE)) {
+                    scan(shard, table, dryRun);
+                }
+            }
+            log.info("Follow shard rebalance {} finished: {} owners scanned, {} misplaced, {} rows moved",
+                    dryRun ? "dry run" : "run", ownersScanned.get(), ownersMoved.get(), rowsMoved.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            lastError = "Interrupted";
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            log.error("Follow shard rebalance failed: {}", e.getMessage(), e);
+        } finally {
+            finishedAt = Instant.now();
+            running.set(false);
+        }
+    }
+
+    private void scan(String shard, String table, boolean dryRun) throws InterruptedException {
+        JdbcTemplate source = shards.jdbc(shard);
+        byte[] after = new byte[16];
+        while (true) {
+            List<byte[]> owners = source.query(
+                    "SELECT DISTINCT owner_id FROM " + table + " WHERE owner_id > ? ORDER BY owner_id LIMIT ?",
+                    (rs, row) -> rs.getBytes(1),
+                    after, scanBatchSize);
+            for (byte[] owner : owners) {
+                ownersScanned.incrementAndGet();
+                String target = shards.shardFor(UuidBytes.fromBytes(owner));
+                if (!target.equals(shard)) {
+                    ownersMoved.incrementAndGet();
+                    meterRegistry.counter("users.follows.shards.rebalance.owners", "table", table).increment();
+                    if (!dryRun) {
+                        move(table, owner, source, shards.jdbc(target));
+                    }
+                }
+            }
+            if (owners.size() < scanBatchSize) {
+                return;
+            }
+            after = owners.get(owners.size() - 1);
+            Thread.sleep(batchPause.toMillis());
+        }
+    }
+
+    private void move(String table, byte[] owner, JdbcTemplate source, JdbcTemplate target) throws InterruptedException {
+        while (true) {
+            List<Object[]> rows = source.query(
+                    "SELECT owner_id, peer_id, created_at, edge_id FROM " + table + " WHERE owner_id = ? ORDER BY peer_id LIMIT ?",
+                    (rs, row) -> new Object[]{rs.getBytes(1), rs.getBytes(2), rs.getTimestamp(3), rs.getBytes(4)},
+                    owner, moveBatchSize);
+            if (rows.isEmpty()) {
+                return;
+            }
+            // A row the new shard already has (from a retry or a concurrent follow) wins over the old copy
+            target.batchUpdate(
+                    "INSERT IGNORE INTO " + table + " (owner_id, peer_id, created_at, edge_id) VALUES (?, ?, ?, ?)",
+                    rows);
+            List<Object[]> copied = rows.stream().map(row -> new Object[]{row[0], row[1], row[3]}).toList();
+            int[] deleted = source.batchUpdate(
+                    "DELETE FROM " + table + " WHERE owner_id = ? AND peer_id = ? AND edge_id = ?",
+                    copied);
+            // A source row that is already gone was unfollowed after the SELECT; its copy must not outlive it.
+            // Matching on edge_id leaves a newer follow of the same pair alone. Drivers that report no counts never match.
+            List<Object[]> unfollowed = new ArrayList<>();
+            for (int i = 0; i < deleted.length; i++) {
+                if (deleted[i] == 0) {
+                    unfollowed.add(copied.get(i));
+                }
+            }
+            if (!unfollowed.isEmpty()) {
+                target.batchUpdate(
+                        "DELETE FROM " + table + " WHERE owner_id = ? AND peer_id = ? AND edge_id = ?",
+                        unfollowed);
+            }
+            rowsMoved.addAndGet(rows.size());
+            meterRegistry.counter("users.follows.shards.rebalance.rows", "table", table).increment(rows.size());
+            if (rows.size() < moveBatchSize) {
+                return;
+            }
+            Thread.sleep(batchPause.toMillis());
+        }
+    }
+}
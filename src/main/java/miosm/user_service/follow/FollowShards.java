@@ -0,0 +1,57 @@
+package miosm.user_service.follow;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// The shard connection pools plus the current ring and, while a rebalance is pending, the previous one.
+// Retiring shards have pools too: they are out of the current ring but still hold rows to move off.
+public class FollowShards implements AutoCloseable {
+
+    private final Map<String, HikariDataSource> dataSources;
+    private final Map<String, JdbcTemplate> templates = new LinkedHashMap<>();
+    private final ConsistentHashRing ring;
+    private final ConsistentHashRing previousRing;
+
+    public FollowShards(Map<String, HikariDataSource> dataSources, ConsistentHashRing ring, ConsistentHashRing previousRing) {
+        this.dataSources = dataSources;
+        this.ring = ring;
+        this.previousRing = previousRing;
+        dataSources.forEach((name, dataSource) -> templates.put(name, new JdbcTemplate(dataSource)));
+    }
+
+    // Every connected shard, retiring ones included, so scans and counts see rows that have not moved yet
+    public List<String> names() {
+        return List.copyOf(templates.keySet());
+    }
+
+    public String shardFor(UUID ownerId) {
+        return ring.nodeFor(ownerId);
+    }
+
+    // The shard an owner lived on before the last membership change, or null when it has not moved
+    public String previousShardFor(UUID ownerId) {
+        if (previousRing == null) {
+            return null;
+        }
+        String previous = previousRing.nodeFor(ownerId);
+        return previous.equals(ring.nodeFor(ownerId)) ? null : previous;
+    }
+
+    public JdbcTemplate jdbc(String shard) {
+        JdbcTemplate template = templates.get(shard);
+        if (template == null) {
+            throw new IllegalStateException("Unknown follow shard: " + shard);
+        }
+        return template;
+    }
+
+    @Override
+    public void close() {
+        dataSources.values().forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,40 @@
+package miosm.user_service.follow;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// GET /actuator/followshards shows the ring and the last rebalance; POST starts one (dryRun defaults to true)
+@Component
+@Endpoint(id = "followshards")
+@ConditionalOnProperty(name = "app.follows.store", havingValue = "sharded")
+@RequiredArgsConstructor
+public class FollowShardsEndpoint {
+
+    private final FollowShards shards;
+    private final FollowShardRebalancer rebalancer;
+
+    @ReadOperation
+    public Map<String, Object> shards() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("shards", shards.names());
+        body.put("rebalance", rebalancer.status());
+        return body;
+    }
+
+    @WriteOperation
+    public Map<String, Object> rebalance(@Nullable Boolean dryRun) {
+        boolean started = rebalancer.start(dryRun == null || dryRun);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("started", started);
+        body.put("rebalance", rebalancer.status());
+        return body;
+    }
+}
@@ -0,0 +1,81 @@
+package miosm.user_service.follow;
+
+import lombok.RequiredArgsConstructor;
+import miosm.user_service.repository.SubscriptionRepository;
+import miosm.user_service.repository.UserRepository;
+import miosm.user_service.repository.projection.FollowCardView;
+import miosm.user_service.util.SubscriptionCursor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+// The single subscriptions table in the main database
+@Component
+@ConditionalOnProperty(name = "app.follows.store", havingValue = "jpa", matchIfMissing = true)
+@RequiredArgsConstructor
+public class JpaFollowGraphStore implements FollowGraphStore {
+
+    private final SubscriptionRepository subscriptionRepository;
+    private final UserRepository userRepository;
+
+    @Override
+    public boolean follow(UUID followerId, UUID followingId) {
+        // The unique key makes a repeated follow a no-op; INSERT IGNORE also swallows foreign key failures
+        return subscriptionRepository.insertIgnore(UUID.randomUUID(), followerId, followingId) > 0;
+    }
+
+    @Override
+    public boolean unfollow(UUID followerId, UUID followingId) {
+        return subscriptionRepository.deleteByIds(followerId, followingId) > 0;
+    }
+
+    @Override
+    public boolean isFollowing(UUID followerId, UUID followingId) {
+        return subscriptionRepository.existsByFollowerIdAndFollowingId(followerId, followingId);
+    }
+
+    @Override
+    public Set<UUID> findFollowed(UUID followerId, Collection<UUID> candidates) {
+        return new HashSet<>(subscriptionRepository.findFollowedIds(followerId, candidates));
+    }
+
+    @Override
+    public List<FollowCardView> findFollowers(UUID userId, SubscriptionCursor after, int limit) {
+        return after == null
+                ? subscriptionRepository.findFollowerCards(userId, PageRequest.of(0, limit))
+                : subscriptionRepository.findFollowerCardsAfter(userId, after.createdAt(), after.id(), PageRequest.of(0, limit));
+    }
+
+    @Override
+    public List<FollowCardView> findFollowing(UUID userId, SubscriptionCursor after, int limit) {
+        return after == null
+                ? subscriptionRepository.findFollowingCards(userId, PageRequest.of(0, limit))
+                : subscriptionRepository.findFollowingCardsAfter(userId, after.createdAt(), after.id(), PageRequest.of(0, limit));
+    }
+
+    @Override
+    public void reconcileCounts(List<UUID> userIds) {
+        userRepository.reconcileFollowCounts(userIds);
+    }
+
+    @Override
+    public Set<UUID> findFollowerIds(UUID userId) {
+        return new HashSet<>(subscriptionRepository.findFollowerIds(userId));
+    }
+
+    @Override
+    public Set<UUID> findFollowingIds(UUID userId) {
+        return new HashSet<>(subscriptionRepository.findFollowingIds(userId));
+    }
+
+    @Override
+    public void removeUser(UUID userId) {
+        subscriptionRepository.deleteByUserId(userId);
+    }
+}
@@ -0,0 +1,342 @@
+package miosm.user_service.follow;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import miosm.user_service.repository.UserRepository;
+import miosm.user_service.repository.projection.FollowCardView;
+import miosm.user_service.repository.projection.UserCardView;
+import miosm.user_service.util.SubscriptionCursor;
+import miosm.user_service.util.UuidBytes;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Edges live twice: follow_forward on the follower's shard and follow_reverse on the followed user's shard,
+// so both "who do I follow" and "who follows me" are answered by a single shard
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.follows.store", havingValue = "sharded")
+@RequiredArgsConstructor
+public class ShardedFollowGraphStore implements FollowGraphStore {
+
+    static final String FORWARD = "follow_forward";
+    static final String REVERSE = "follow_reverse";
+
+    private static final int REMOVE_BATCH_SIZE = 1000;
+
+    private static final Comparator<Edge> NEWEST_FIRST = Comparator.comparing(Edge::createdAt)
+            .thenComparing(Edge::edgeId, Comparator.comparing(UuidBytes::toBytes, Arrays::compareUnsigned))
+            .reversed();
+
+    private final FollowShards shards;
+    private final UserRepository userRepository;
+
+    @Override
+    public boolean follow(UUID followerId, UUID followingId) {
+        // There are no foreign keys across databases, so check the users up front
+        if (!userRepository.existsById(followerId) || !userRepository.existsById(followingId)) {
+            return false;
+        }
+        String previous = shards.previousShardFor(followerId);
+        if (previous != null && exists(previous, followerId, followingId)) {
+            return false;
+        }
+
+        // MySQL keeps microseconds; truncating here keeps cursors built from this value exact
+        LocalDateTime createdAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        UUID edgeId = UUID.randomUUID();
+        String forwardShard = shards.shardFor(followerId);
+        if (insert(forwardShard, FORWARD, followerId, followingId, createdAt, edgeId) == 0) {
+            return false;
+        }
+        try {
+            insert(shards.shardFor(followingId), REVERSE, followingId, followerId, createdAt, edgeId);
+        } catch (RuntimeException e) {
+            // The two shards cannot share a transaction; undo the first half so the edge is all or nothing
+            delete(forwardShard, FORWARD, followerId, followingId);
+            throw e;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean unfollow(UUID followerId, UUID followingId) {
+        int deleted = deleteEverywhere(FORWARD, followerId, followingId);
+        deleteEverywhere(REVERSE, followingId, followerId);
+        return deleted > 0;
+    }
+
+    @Override
+    public boolean isFollowing(UUID followerId, UUID followingId) {
+        if (exists(shards.shardFor(followerId), followerId, followingId)) {
+            return true;
+        }
+        String previous = shards.previousShardFor(followerId);
+        return previous != null && exists(previous, followerId, followingId);
+    }
+
+    @Override
+    public Set<UUID> findFollowed(UUID followerId, Collection<UUID> candidates) {
+        Set<UUID> followed = new HashSet<>(findPeers(shards.shardFor(followerId), followerId, candidates));
+        String previous = shards.previousShardFor(followerId);
+        if (previous != null) {
+            followed.addAll(findPeers(previous, followerId, candidates));
+        }
+        return followed;
+    }
+
+    @Override
+    public List<FollowCardView> findFollowers(UUID userId, SubscriptionCursor after, int limit) {
+        return findCards(REVERSE, userId, after, limit);
+    }
+
+    @Override
+    public List<FollowCardView> findFollowing(UUID userId, SubscriptionCursor after, int limit) {
+        return findCards(FORWARD, userId, after, limit);
+    }
+
+    @Override
+    public void reconcileCounts(List<UUID> userIds) {
+        Map<UUID, Long> following = countByOwner(FORWARD, userIds);
+        Map<UUID, Long> followers = countByOwner(REVERSE, userIds);
+        for (UUID id : userIds) {
+            userRepository.setFollowCounts(id, followers.getOrDefault(id, 0L), following.getOrDefault(id, 0L));
+        }
+    }
+
+    @Override
+    public Set<UUID> findFollowerIds(UUID userId) {
+        return findAllPeers(REVERSE, userId);
+    }
+
+    @Override
+    public Set<UUID> findFollowingIds(UUID userId) {
+        return findAllPeers(FORWARD, userId);
+    }
+
+    // The shards are outside the caller's transaction, so the edges go once the user's row is gone for good.
+    // If that fails they are left pointing at a missing user, which reads skip.
+    @Override
+    public void removeUser(UUID userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            removeEdges(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    removeEdges(userId);
+                } catch (RuntimeException e) {
+                    log.error("Failed to remove follow edges of deleted user {}: {}", userId, e.getMessage(), e);
+                }
+            }
+        });
+    }
+
+    private void removeEdges(UUID userId) {
+        removeOwner(FORWARD, REVERSE, userId);
+        removeOwner(REVERSE, FORWARD, userId);
+    }
+
+    // The peers' halves go first, so a failure leaves the owner's rows to find them again on a retry
+    private void removeOwner(String table, String mirror, UUID ownerId) {
+        for (String shard : ownerShards(ownerId)) {
+            JdbcTemplate jdbc = shards.jdbc(shard);
+            while (true) {
+                List<UUID> peers = jdbc.query(
+                        "SELECT peer_id FROM " + table + " WHERE owner_id = ? LIMIT ?",
+                        (rs, row) -> UuidBytes.fromBytes(rs.getBytes(1)),
+                        UuidBytes.toBytes(ownerId), REMOVE_BATCH_SIZE);
+                if (peers.isEmpty()) {
+                    break;
+                }
+                Map<String, List<Object[]>> mirrored = new HashMap<>();
+                for (UUID peer : peers) {
+                    Object[] key = {UuidBytes.toBytes(peer), UuidBytes.toBytes(ownerId)};
+                    for (String peerShard : ownerShards(peer)) {
+                        mirrored.computeIfAbsent(peerShard, name -> new ArrayList<>()).add(key);
+                    }
+                }
+                mirrored.forEach((peerShard, keys) -> shards.jdbc(peerShard).batchUpdate(
+                        "DELETE FROM " + mirror + " WHERE owner_id = ? AND peer_id = ?", keys));
+                jdbc.batchUpdate("DELETE FROM " + table + " WHERE owner_id = ? AND peer_id = ?",
+                        peers.stream().map(peer -> new Object[]{UuidBytes.toBytes(ownerId), UuidBytes.toBytes(peer)}).toList());
+                if (peers.size() < REMOVE_BATCH_SIZE) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private List<String> ownerShards(UUID ownerId) {
+        String previous = shards.previousShardFor(ownerId);
+        return previous == null ? List.of(shards.shardFor(ownerId)) : List.of(shards.shardFor(ownerId), previous);
+    }
+
+    private List<FollowCardView> findCards(String table, UUID ownerId, SubscriptionCursor after, int limit) {
+        List<FollowCardView> cards = new ArrayList<>(limit);
+        SubscriptionCursor cursor = after;
+        // Edges may still point at deleted users; keep reading so a page is only short when the list ends
+        while (cards.size() < limit) {
+            List<Edge> edges = findEdges(table, ownerId, cursor, limit - cards.size());
+            if (edges.isEmpty()) {
+                break;
+            }
+            Map<UUID, UserCardView> users = userRepository.findCardsByIdIn(edges.stream().map(Edge::peerId).toList())
+                    .stream()
+                    .collect(Collectors.toMap(UserCardView::getId, Function.identity()));
+            for (Edge edge : edges) {
+                UserCardView user = users.get(edge.peerId());
+                if (user != null) {
+                    cards.add(new FollowCard(edge.edgeId(), edge.createdAt(), user.getId(), user.getUsername(),
+                            user.getAvatarUrl(), user.getAvatarRenditionsReady()));
+                }
+            }
+            Edge last = edges.get(edges.size() - 1);
+            cursor = new SubscriptionCursor(last.createdAt(), last.edgeId());
+        }
+        return cards;
+    }
+
+    private List<Edge> findEdges(String table, UUID ownerId, SubscriptionCursor after, int limit) {
+        List<Edge> edges = findEdges(shards.shardFor(ownerId), table, ownerId, after, limit);
+        String previous = shards.previousShardFor(ownerId);
+        if (previous == null) {
+            return edges;
+        }
+        // Mid-rebalance an owner's rows can be split between the old and the new shard
+        Map<UUID, Edge> merged = new HashMap<>();
+        for (Edge edge : findEdges(previous, table, ownerId, after, limit)) {
+            merged.put(edge.peerId(), edge);
+        }
+        edges.forEach(edge -> merged.put(edge.peerId(), edge));
+        List<Edge> sorted = new ArrayList<>(merged.values());
+        sorted.sort(NEWEST_FIRST);
+        return sorted.size() > limit ? sorted.subList(0, limit) : sorted;
+    }
+
+    private List<Edge> findEdges(String shard, String table, UUID ownerId, SubscriptionCursor after, int limit) {
+        JdbcTemplate jdbc = shards.jdbc(shard);
+        if (after == null) {
+            return jdbc.query("SELECT peer_id, created_at, edge_id FROM " + table +
+                              " WHERE owner_id = ? ORDER BY created_at DESC, edge_id DESC LIMIT ?",
+                    EDGE, UuidBytes.toBytes(ownerId), limit);
+        }
+        Timestamp createdAt = Timestamp.valueOf(after.createdAt());
+        return jdbc.query("SELECT peer_id, created_at, edge_id FROM " + table +
+                          " WHERE owner_id = ? AND (created_at < ? OR (created_at = ? AND edge_id < ?))" +
+                          " ORDER BY created_at DESC, edge_id DESC LIMIT ?",
+                EDGE, UuidBytes.toBytes(ownerId), createdAt, createdAt, UuidBytes.toBytes(after.id()), limit);
+    }
+
+    private List<UUID> findPeers(String shard, UUID ownerId, Collection<UUID> candidates) {
+        List<Object> args = new ArrayList<>(candidates.size() + 1);
+        args.add(UuidBytes.toBytes(ownerId));
+        candidates.forEach(id -> args.add(UuidBytes.toBytes(id)));
+        String placeholders = String.join(",", Collections.nCopies(candidates.size(), "?"));
+        return shards.jdbc(shard).query(
+                "SELECT peer_id FROM " + FORWARD + " WHERE owner_id = ? AND peer_id IN (" + placeholders + ")",
+                (rs, row) -> UuidBytes.fromBytes(rs.getBytes(1)),
+                args.toArray());
+    }
+
+    // Counts what the reads see: the owner's shard, plus its previous shard while it moves
+    private Map<UUID, Long> countByOwner(String table, List<UUID> ownerIds) {
+        Map<UUID, Long> counts = new HashMap<>();
+        Map<String, List<UUID>> settled = new HashMap<>();
+        for (UUID ownerId : ownerIds) {
+            if (shards.previousShardFor(ownerId) == null) {
+                settled.computeIfAbsent(shards.shardFor(ownerId), shard -> new ArrayList<>()).add(ownerId);
+            } else {
+                counts.put(ownerId, (long) countMoving(table, ownerId));
+            }
+        }
+        settled.forEach((shard, owners) -> {
+            Object[] args = owners.stream().map(UuidBytes::toBytes).toArray();
+            String placeholders = String.join(",", Collections.nCopies(owners.size(), "?"));
+            shards.jdbc(shard).query(
+                    "SELECT owner_id, COUNT(*) FROM " + table + " WHERE owner_id IN (" + placeholders + ") GROUP BY owner_id",
+                    rs -> {
+                        counts.put(UuidBytes.fromBytes(rs.getBytes(1)), rs.getLong(2));
+                    },
+                    args);
+        });
+        return counts;
+    }
+
+    // Between the rebalancer's copy and its delete an edge sits on both shards, so count distinct peers
+    private int countMoving(String table, UUID ownerId) {
+        return findAllPeers(table, ownerId).size();
+    }
+
+    private Set<UUID> findAllPeers(String table, UUID ownerId) {
+        Set<UUID> peers = new HashSet<>();
+        for (String shard : ownerShards(ownerId)) {
+            peers.addAll(shards.jdbc(shard).query(
+                    "SELECT peer_id FROM " + table + " WHERE owner_id = ?",
+                    (rs, row) -> UuidBytes.fromBytes(rs.getBytes(1)),
+                    UuidBytes.toBytes(ownerId)));
+        }
+        return peers;
+    }
+
+    private boolean exists(String shard, UUID followerId, UUID followingId) {
+        List<Integer> found = shards.jdbc(shard).query(
+                "SELECT 1 FROM " + FORWARD + " WHERE owner_id = ? AND peer_id = ?",
+                (rs, row) -> 1,
+                UuidBytes.toBytes(followerId), UuidBytes.toBytes(followingId));
+        return !found.isEmpty();
+    }
+
+    private int insert(String shard, String table, UUID ownerId, UUID peerId, LocalDateTime createdAt, UUID edgeId) {
+        return shards.jdbc(shard).update(
+                "INSERT IGNORE INTO " + table + " (owner_id, peer_id, created_at, edge_id) VALUES (?, ?, ?, ?)",
+                UuidBytes.toBytes(ownerId), UuidBytes.toBytes(peerId), Timestamp.valueOf(createdAt), UuidBytes.toBytes(edgeId));
+    }
+
+    private int delete(String shard, String table, UUID ownerId, UUID peerId) {
+        return shards.jdbc(shard).update(
+                "DELETE FROM " + table + " WHERE owner_id = ? AND peer_id = ?",
+                UuidBytes.toBytes(ownerId), UuidBytes.toBytes(peerId));
+    }
+
+    // The old shard goes first: the rebalancer copies before it deletes the source row, so either it still finds
+    // the source and the target delete below catches the copy, or it finds the source gone and drops the copy itself
+    private int deleteEverywhere(String table, UUID ownerId, UUID peerId) {
+        int deleted = 0;
+        String previous = shards.previousShardFor(ownerId);
+        if (previous != null) {
+            deleted += delete(previous, table, ownerId, peerId);
+        }
+        return deleted + delete(shards.shardFor(ownerId), table, ownerId, peerId);
+    }
+
+    private record Edge(UUID peerId, LocalDateTime createdAt, UUID edgeId) {
+    }
+
+    private static final RowMapper<Edge> EDGE = (rs, row) -> new Edge(
+            UuidBytes.fromBytes(rs.getBytes("peer_id")),
+            rs.getTimestamp("created_at").toLocalDateTime(),
+            UuidBytes.fromBytes(rs.getBytes("edge_id")));
+}
@@ -0,0 +1,43 @@
+package miosm.user_service.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Keeps one in keepOneIn INFO-and-below events from loggers under the given comma-separated prefixes;
+// WARN and ERROR always pass. Runs before the event is built, so dropped events cost no formatting.
+public class SamplingTurboFilter extends TurboFilter {
+
+    private String[] loggerPrefixes = new String[0];
+    private int keepOneIn = 1;
+
+    public void setLoggerPrefix(String loggerPrefix) {
+        this.loggerPrefixes = Arrays.stream(loggerPrefix.split(","))
+                .map(String::trim)
+                .filter(prefix -> !prefix.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    public void setKeepOneIn(int keepOneIn) {
+        this.keepOneIn = Math.max(1, keepOneIn);
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // isXxxEnabled() checks arrive without a format and must not be sampled, or guarded calls would be skewed
+        if (format == null || keepOneIn == 1 || level.isGreaterOrEqual(Level.WARN)) {
+            return FilterReply.NEUTRAL;
+        }
+        for (String prefix : loggerPrefixes) {
+            if (logger.getName().startsWith(prefix)) {
+                return ThreadLocalRandom.current().nextInt(keepOneIn) == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+            }
+        }
+        return FilterReply.NEUTRAL;
+    }
+}
@@ -0,0 +1,11 @@
+package miosm.user_service.mapper;
+
+import miosm.user_service.dto.ImageUploadJobDto;
+import miosm.user_service.entity.ImageUploadJob;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring")
+public interface ImageUploadJobMapper {
+
+    ImageUploadJobDto toDto(ImageUploadJob job);
+}
@@ -0,0 +1,14 @@
+package miosm.user_service.mapper;
+
+import miosm.user_service.dto.UserCardDto;
+import miosm.user_service.repository.projection.UserCardView;
+import miosm.user_service.util.ImageRenditions;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(componentModel = "spring", imports = ImageRenditions.class)
+public interface UserCardMapper {
+
+    @Mapping(target = "avatarThumbnailUrl", expression = "java(ImageRenditions.avatarThumbnailUrl(view.getAvatarUrl(), Boolean.TRUE.equals(view.getAvatarRenditionsReady())))")
+    UserCardDto toDto(UserCardView view);
+}
@@ -2,11 +2,14 @@ package miosm.user_service.mapper;
 
 import miosm.user_service.dto.UserResponseDto;
 import miosm.user_service.entity.User;
+import miosm.user_service.util.ImageRenditions;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
-@Mapper(componentModel = "spring")
+@Mapper(componentModel = "spring", imports = ImageRenditions.class)
 public interface UserResponseMapper {
 
+    @Mapping(target = "avatarRenditions", expression = "java(ImageRenditions.avatarUrls(user.getAvatarUrl(), user.isAvatarRenditionsReady()))")
+    @Mapping(target = "coverImageRenditions", expression = "java(ImageRenditions.coverUrls(user.getCoverImageUrl(), user.isCoverImageRenditionsReady()))")
     UserResponseDto toDto(User user);
 }
\ No newline at end of file
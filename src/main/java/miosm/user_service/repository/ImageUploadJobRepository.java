@@ -0,0 +1,33 @@
+package miosm.user_service.repository;
+
+import miosm.user_service.entity.ImageUploadJob;
+import miosm.user_service.entity.ImageUploadStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface ImageUploadJobRepository extends JpaRepository<ImageUploadJob, UUID> {
+
+    @Query("SELECT j FROM ImageUploadJob j WHERE j.node = :node " +
+           "AND j.status = miosm.user_service.entity.ImageUploadStatus.PENDING " +
+           "AND j.nextAttemptAt <= :now ORDER BY j.nextAttemptAt")
+    List<ImageUploadJob> findDue(@Param("node") String node, @Param("now") LocalDateTime now, Pageable pageable);
+
+    long countByNodeAndStatus(String node, ImageUploadStatus status);
+
+    long countByNodeAndStatusIn(String node, Collection<ImageUploadStatus> statuses);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ImageUploadJob j SET j.status = miosm.user_service.entity.ImageUploadStatus.PENDING " +
+           "WHERE j.node = :node AND j.status = miosm.user_service.entity.ImageUploadStatus.RUNNING")
+    int resetRunning(@Param("node") String node);
+}
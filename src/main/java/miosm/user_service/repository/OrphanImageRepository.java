@@ -0,0 +1,40 @@
+package miosm.user_service.repository;
+
+import miosm.user_service.entity.OrphanImage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface OrphanImageRepository extends JpaRepository<OrphanImage, UUID> {
+
+    @Query("SELECT o FROM OrphanImage o WHERE o.nextAttemptAt <= :now ORDER BY o.nextAttemptAt")
+    List<OrphanImage> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Also called after another transaction's commit, where joining it would never commit the row
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO orphan_images (id, object_key, attempts, next_attempt_at, created_at) " +
+                   "VALUES (:id, :objectKey, 0, :nextAttemptAt, CURRENT_TIMESTAMP(6))", nativeQuery = true)
+    int insertIgnore(@Param("id") UUID id, @Param("objectKey") String objectKey,
+                     @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO orphan_images (id, object_key, pending_upload, attempts, next_attempt_at, created_at) " +
+                   "VALUES (:id, :objectKey, TRUE, 0, :nextAttemptAt, CURRENT_TIMESTAMP(6))", nativeQuery = true)
+    int insertPendingUpload(@Param("id") UUID id, @Param("objectKey") String objectKey,
+                            @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM OrphanImage o WHERE o.objectKey = :objectKey AND o.pendingUpload = true")
+    int deletePendingUpload(@Param("objectKey") String objectKey);
+}
@@ -1,30 +1,90 @@
 package miosm.user_service.repository;
 
 import miosm.user_service.entity.Subscription;
-import miosm.user_service.entity.User;
+import miosm.user_service.repository.projection.FollowCardView;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 import java.util.UUID;
 
 public interface SubscriptionRepository extends JpaRepository<Subscription, UUID> {
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO subscriptions (id, follower_id, following_id, created_at) " +
+                   "VALUES (:id, :followerId, :followingId, CURRENT_TIMESTAMP(6))", nativeQuery = true)
+    int insertIgnore(@Param("id") UUID id, @Param("followerId") UUID followerId, @Param("followingId") UUID followingId);
+
+    @Modifying
+    @Query("DELETE FROM Subscription s WHERE s.follower.id = :followerId AND s.following.id = :followingId")
+    int deleteByIds(@Param("followerId") UUID followerId, @Param("followingId") UUID followingId);
+
+    @Modifying
+    @Query("DELETE FROM Subscription s WHERE s.follower.id = :userId OR s.following.id = :userId")
+    int deleteByUserId(@Param("userId") UUID userId);
+
+    boolean existsByFollowerIdAndFollowingId(UUID followerId, UUID followingId);
+
+    // Stops at the first row, unlike count() on InnoDB
+    boolean existsByIdNotNull();
     
-    Optional<Subscription> findByFollowerAndFollowing(User follower, User following);
-    
-    @Query("SELECT s.following FROM Subscription s WHERE s.follower.id = :userId")
-    List<User> findFollowingByUserId(@Param("userId") UUID userId);
+    @Query("SELECT s.id AS subscriptionId, s.createdAt AS followedAt, " +
+           "u.id AS id, u.username AS username, u.avatarUrl AS avatarUrl, " +
+           "u.avatarRenditionsReady AS avatarRenditionsReady " +
+           "FROM Subscription s JOIN s.following u " +
+           "WHERE s.follower.id = :userId " +
+           "ORDER BY s.createdAt DESC, s.id DESC")
+    List<FollowCardView> findFollowingCards(@Param("userId") UUID userId, Pageable pageable);
+
+    @Query("SELECT s.id AS subscriptionId, s.createdAt AS followedAt, " +
+           "u.id AS id, u.username AS username, u.avatarUrl AS avatarUrl, " +
+           "u.avatarRenditionsReady AS avatarRenditionsReady " +
+           "FROM Subscription s JOIN s.following u " +
+           "WHERE s.follower.id = :userId " +
+           "AND (s.createdAt < :createdAt OR (s.createdAt = :createdAt AND s.id < :id)) " +
+           "ORDER BY s.createdAt DESC, s.id DESC")
+    List<FollowCardView> findFollowingCardsAfter(@Param("userId") UUID userId,
+                                                 @Param("createdAt") LocalDateTime createdAt,
+                                                 @Param("id") UUID id,
+                                                 Pageable pageable);
     
-    @Query("SELECT s.follower FROM Subscription s WHERE s.following.id = :userId")
-    List<User> findFollowersByUserId(@Param("userId") UUID userId);
+    @Query("SELECT s.id AS subscriptionId, s.createdAt AS followedAt, " +
+           "u.id AS id, u.username AS username, u.avatarUrl AS avatarUrl, " +
+           "u.avatarRenditionsReady AS avatarRenditionsReady " +
+           "FROM Subscription s JOIN s.follower u " +
+           "WHERE s.following.id = :userId " +
+           "ORDER BY s.createdAt DESC, s.id DESC")
+    List<FollowCardView> findFollowerCards(@Param("userId") UUID userId, Pageable pageable);
+
+    @Query("SELECT s.id AS subscriptionId, s.createdAt AS followedAt, " +
+           "u.id AS id, u.username AS username, u.avatarUrl AS avatarUrl, " +
+           "u.avatarRenditionsReady AS avatarRenditionsReady " +
+           "FROM Subscription s JOIN s.follower u " +
+           "WHERE s.following.id = :userId " +
+           "AND (s.createdAt < :createdAt OR (s.createdAt = :createdAt AND s.id < :id)) " +
+           "ORDER BY s.createdAt DESC, s.id DESC")
+    List<FollowCardView> findFollowerCardsAfter(@Param("userId") UUID userId,
+                                                @Param("createdAt") LocalDateTime createdAt,
+                                                @Param("id") UUID id,
+                                                Pageable pageable);
     
     @Query("SELECT COUNT(s) FROM Subscription s WHERE s.following.id = :userId")
     Long countFollowersByUserId(@Param("userId") UUID userId);
     
     @Query("SELECT COUNT(s) FROM Subscription s WHERE s.follower.id = :userId")
     Long countFollowingByUserId(@Param("userId") UUID userId);
-    
-    boolean existsByFollowerAndFollowing(User follower, User following);
+
+    @Query("SELECT s.following.id FROM Subscription s WHERE s.follower.id = :followerId AND s.following.id IN :followingIds")
+    List<UUID> findFollowedIds(@Param("followerId") UUID followerId, @Param("followingIds") Collection<UUID> followingIds);
+
+    @Query("SELECT s.follower.id FROM Subscription s WHERE s.following.id = :userId")
+    List<UUID> findFollowerIds(@Param("userId") UUID userId);
+
+    @Query("SELECT s.following.id FROM Subscription s WHERE s.follower.id = :userId")
+    List<UUID> findFollowingIds(@Param("userId") UUID userId);
 }
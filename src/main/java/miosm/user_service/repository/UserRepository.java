@@ -1,29 +1,131 @@
 package miosm.user_service.repository;
 
 import miosm.user_service.entity.User;
+import miosm.user_service.repository.projection.UserCardView;
+import miosm.user_service.repository.projection.UserImageView;
+import miosm.user_service.repository.projection.UserSearchView;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface UserRepository extends JpaRepository<User, UUID> {
     Optional<User> findByUsername(String username);
+
+    List<User> findAllByUsernameIn(Collection<String> usernames);
     
     @Query("SELECT u FROM User u WHERE " +
            "LOWER(u.username) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
            "LOWER(u.bio) LIKE LOWER(CONCAT('%', :query, '%'))")
     List<User> searchUsers(@Param("query") String query);
     
-    @Query("SELECT u FROM User u WHERE " +
+    @Query("SELECT u.id AS id, u.username AS username, u.avatarUrl AS avatarUrl, " +
+           "u.avatarRenditionsReady AS avatarRenditionsReady FROM User u WHERE " +
            "LOWER(u.username) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
            "LOWER(u.bio) LIKE LOWER(CONCAT('%', :query, '%')) " +
            "ORDER BY " +
            "CASE WHEN LOWER(u.username) = LOWER(:query) THEN 1 " +
            "     WHEN LOWER(u.username) LIKE LOWER(CONCAT(:query, '%')) THEN 2 " +
            "     WHEN LOWER(u.username) LIKE LOWER(CONCAT('%', :query, '%')) THEN 3 " +
-           "     ELSE 4 END")
-    List<User> searchUsersRanked(@Param("query") String query);
+           "     ELSE 4 END, " +
+           "LOWER(u.username), u.id")
+    List<UserCardView> searchCardsRanked(@Param("query") String query, Pageable pageable);
+
+    @Query("SELECT u.id AS id, u.username AS username, u.avatarUrl AS avatarUrl, " +
+           "u.avatarRenditionsReady AS avatarRenditionsReady FROM User u WHERE u.id IN :ids")
+    List<UserCardView> findCardsByIdIn(@Param("ids") Collection<UUID> ids);
+
+    @Query("SELECT u.id AS id, u.username AS username, u.bio AS bio FROM User u ORDER BY u.id")
+    List<UserSearchView> findSearchViews(Pageable pageable);
+
+    @Query("SELECT u.id AS id, u.username AS username, u.bio AS bio FROM User u WHERE u.id > :after ORDER BY u.id")
+    List<UserSearchView> findSearchViewsAfter(@Param("after") UUID after, Pageable pageable);
+
+    @Query("SELECT u.id AS id, u.username AS username, u.bio AS bio FROM User u WHERE u.updatedAt >= :since")
+    List<UserSearchView> findSearchViewsUpdatedSince(@Param("since") LocalDateTime since);
+
+    @Query("SELECT u.followersCount FROM User u WHERE u.id = :id")
+    Optional<Long> findFollowersCountById(@Param("id") UUID id);
+
+    @Query("SELECT u.followingCount FROM User u WHERE u.id = :id")
+    Optional<Long> findFollowingCountById(@Param("id") UUID id);
+
+    @Modifying
+    @Query("UPDATE User u SET u.followersCount = u.followersCount + :delta WHERE u.id = :id")
+    int adjustFollowersCount(@Param("id") UUID id, @Param("delta") long delta);
+
+    @Modifying
+    @Query("UPDATE User u SET u.followingCount = u.followingCount + :delta WHERE u.id = :id")
+    int adjustFollowingCount(@Param("id") UUID id, @Param("delta") long delta);
+
+    @Modifying
+    @Query("UPDATE User u SET u.followersCount = u.followersCount - 1 WHERE u.id IN :ids AND u.followersCount > 0")
+    int decrementFollowersCounts(@Param("ids") Collection<UUID> ids);
+
+    @Modifying
+    @Query("UPDATE User u SET u.followingCount = u.followingCount - 1 WHERE u.id IN :ids AND u.followingCount > 0")
+    int decrementFollowingCounts(@Param("ids") Collection<UUID> ids);
+
+    @Query("SELECT u.id FROM User u ORDER BY u.id")
+    List<UUID> findIds(Pageable pageable);
+
+    @Query("SELECT u.id FROM User u WHERE u.id > :after ORDER BY u.id")
+    List<UUID> findIdsAfter(@Param("after") UUID after, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE users u SET " +
+                   "u.followers_count = (SELECT COUNT(*) FROM subscriptions s WHERE s.following_id = u.id), " +
+                   "u.following_count = (SELECT COUNT(*) FROM subscriptions s WHERE s.follower_id = u.id) " +
+                   "WHERE u.id IN (:ids)", nativeQuery = true)
+    int reconcileFollowCounts(@Param("ids") List<UUID> ids);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.followersCount = :followers, u.followingCount = :following WHERE u.id = :id")
+    int setFollowCounts(@Param("id") UUID id, @Param("followers") long followers, @Param("following") long following);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.avatarUrl = :url, u.avatarRenditionsReady = :renditionsReady, " +
+           "u.updatedAt = LOCAL DATETIME WHERE u.id = :id")
+    int updateAvatarUrl(@Param("id") UUID id, @Param("url") String url, @Param("renditionsReady") boolean renditionsReady);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.coverImageUrl = :url, u.coverImageRenditionsReady = :renditionsReady, " +
+           "u.updatedAt = LOCAL DATETIME WHERE u.id = :id")
+    int updateCoverImageUrl(@Param("id") UUID id, @Param("url") String url, @Param("renditionsReady") boolean renditionsReady);
+
+    // Only flips the flag if the image has not been replaced while its renditions were generated
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.avatarRenditionsReady = true WHERE u.id = :id AND u.avatarUrl = :url")
+    int markAvatarRenditionsReady(@Param("id") UUID id, @Param("url") String url);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.coverImageRenditionsReady = true WHERE u.id = :id AND u.coverImageUrl = :url")
+    int markCoverImageRenditionsReady(@Param("id") UUID id, @Param("url") String url);
+
+    @Query("SELECT u.avatarUrl FROM User u WHERE u.id = :id")
+    Optional<String> findAvatarUrlById(@Param("id") UUID id);
+
+    @Query("SELECT u.coverImageUrl FROM User u WHERE u.id = :id")
+    Optional<String> findCoverImageUrlById(@Param("id") UUID id);
+
+    @Query("SELECT u.id AS id, u.avatarUrl AS avatarUrl, u.coverImageUrl AS coverImageUrl FROM User u ORDER BY u.id")
+    List<UserImageView> findImageViews(Pageable pageable);
+
+    @Query("SELECT u.id AS id, u.avatarUrl AS avatarUrl, u.coverImageUrl AS coverImageUrl FROM User u " +
+           "WHERE u.id > :after ORDER BY u.id")
+    List<UserImageView> findImageViewsAfter(@Param("after") UUID after, Pageable pageable);
 }
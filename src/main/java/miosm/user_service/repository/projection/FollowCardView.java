@@ -0,0 +1,11 @@
+package miosm.user_service.repository.projection;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// A user card plus the subscription columns the keyset cursor is built from
+public interface FollowCardView extends UserCardView {
+    UUID getSubscriptionId();
+
+    LocalDateTime getFollowedAt();
+}
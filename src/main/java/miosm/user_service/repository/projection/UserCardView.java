@@ -0,0 +1,13 @@
+package miosm.user_service.repository.projection;
+
+import java.util.UUID;
+
+public interface UserCardView {
+    UUID getId();
+
+    String getUsername();
+
+    String getAvatarUrl();
+
+    Boolean getAvatarRenditionsReady();
+}
@@ -0,0 +1,11 @@
+package miosm.user_service.repository.projection;
+
+import java.util.UUID;
+
+public interface UserImageView {
+    UUID getId();
+
+    String getAvatarUrl();
+
+    String getCoverImageUrl();
+}
@@ -0,0 +1,12 @@
+package miosm.user_service.search;
+
+import java.util.Comparator;
+import java.util.UUID;
+
+public record SearchHit(int rank, String username, UUID id) {
+
+    public static final Comparator<SearchHit> RANKING = Comparator
+            .comparingInt(SearchHit::rank)
+            .thenComparing(SearchHit::username)
+            .thenComparing(SearchHit::id);
+}
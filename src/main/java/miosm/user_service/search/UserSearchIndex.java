@@ -0,0 +1,318 @@
+package miosm.user_service.search;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import miosm.user_service.repository.UserRepository;
+import miosm.user_service.repository.projection.UserSearchView;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserSearchIndex {
+
+    // Substring matches need at least one full trigram; shorter queries only match username prefixes
+    static final int MIN_SUBSTRING_LENGTH = 3;
+
+    private static final UUID MIN_ID = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+
+    private final UserRepository userRepository;
+
+    private final Map<UUID, Document> documents = new ConcurrentHashMap<>();
+    private final NavigableSet<Name> names = new ConcurrentSkipListSet<>();
+    private final Map<String, Set<UUID>> usernameTrigrams = new ConcurrentHashMap<>();
+    private final NavigableMap<String, Set<UUID>> bioTokens = new ConcurrentSkipListMap<>();
+
+    // Deleted ids with their System.nanoTime() of deletion. A rebuild or refresh may have read the row before
+    // the delete, so it must not bring it back; each one drops the tombstones older than its own start.
+    private final Map<UUID, Long> tombstones = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    @Value("${app.search.rebuild-batch-size:1000}")
+    private int rebuildBatchSize;
+
+    @Value("${app.search.refresh-overlap:PT10S}")
+    private Duration refreshOverlap;
+
+    private volatile boolean ready;
+    private volatile LocalDateTime indexedUntil;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        // The startup rebuild and a refresh that finds the index not ready yet must not scan the table twice
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        long startedNanos = System.nanoTime();
+        LocalDateTime snapshot = LocalDateTime.now();
+        try {
+            Pageable batch = PageRequest.of(0, rebuildBatchSize);
+            List<UserSearchView> views = userRepository.findSearchViews(batch);
+            while (!views.isEmpty()) {
+                // Live updates that raced with the rebuild are newer than the rows read here
+                views.forEach(view -> documents.computeIfAbsent(view.getId(), id -> tombstones.containsKey(id)
+                        ? null
+                        : addPostings(Document.of(id, view.getUsername(), view.getBio()))));
+                if (views.size() < rebuildBatchSize) {
+                    break;
+                }
+                views = userRepository.findSearchViewsAfter(views.get(views.size() - 1).getId(), batch);
+            }
+            indexedUntil = snapshot;
+            pruneTombstones(startedNanos);
+            ready = true;
+            log.info("Search index built with {} users in {} ms", documents.size(), System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            log.error("Failed to build search index, falling back to database search: {}", e.getMessage(), e);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    // Picks up writes made through other instances; rows deleted elsewhere are dropped at hydration
+    @Scheduled(initialDelayString = "${app.search.refresh-interval:PT1M}",
+               fixedDelayString = "${app.search.refresh-interval:PT1M}")
+    public void refresh() {
+        if (!ready) {
+            rebuild();
+            return;
+        }
+        long startedNanos = System.nanoTime();
+        LocalDateTime snapshot = LocalDateTime.now();
+        try {
+            List<UserSearchView> views = userRepository.findSearchViewsUpdatedSince(indexedUntil.minus(refreshOverlap));
+            views.forEach(view -> index(view.getId(), view.getUsername(), view.getBio()));
+            indexedUntil = snapshot;
+            pruneTombstones(startedNanos);
+        } catch (Exception e) {
+            log.warn("Search index refresh failed: {}", e.getMessage());
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void index(UUID id, String username, String bio) {
+        Document document = Document.of(id, username, bio);
+        documents.compute(id, (key, previous) -> {
+            if (previous != null) {
+                removePostings(previous);
+            }
+            return tombstones.containsKey(id) ? null : addPostings(document);
+        });
+    }
+
+    // The tombstone goes in first; a concurrent index of the same id either ran before this compute or sees it
+    public void remove(UUID id) {
+        tombstones.put(id, System.nanoTime());
+        documents.computeIfPresent(id, (key, previous) -> {
+            removePostings(previous);
+            return null;
+        });
+    }
+
+    private void pruneTombstones(long startedNanos) {
+        tombstones.values().removeIf(deletedAt -> deletedAt - startedNanos < 0);
+    }
+
+    public List<SearchHit> search(String query, SearchHit after, int limit) {
+        String term = normalize(query);
+        if (term.isEmpty() || limit < 1) {
+            return List.of();
+        }
+        return term.length() < MIN_SUBSTRING_LENGTH
+                ? searchPrefix(term, after, limit)
+                : searchSubstring(term, after, limit);
+    }
+
+    // Exact and prefix matches sort by (username, id) within the prefix range, which is already ranking order
+    private List<SearchHit> searchPrefix(String term, SearchHit after, int limit) {
+        Name from = after == null ? new Name(term, MIN_ID) : new Name(after.username(), after.id());
+        List<SearchHit> hits = new ArrayList<>(limit);
+        for (Name name : names.tailSet(from, after == null)) {
+            if (!name.username().startsWith(term) || hits.size() == limit) {
+                break;
+            }
+            hits.add(new SearchHit(name.username().equals(term) ? 1 : 2, name.username(), name.id()));
+        }
+        return hits;
+    }
+
+    private List<SearchHit> searchSubstring(String term, SearchHit after, int limit) {
+        Set<UUID> candidates = new HashSet<>(usernameCandidates(term));
+        candidates.addAll(bioCandidates(term));
+
+        // Max-heap on ranking so the worst of the current top-N is evicted first
+        PriorityQueue<SearchHit> top = new PriorityQueue<>(limit + 1, SearchHit.RANKING.reversed());
+        for (UUID id : candidates) {
+            Document document = documents.get(id);
+            if (document == null) {
+                continue;
+            }
+            int rank = document.rank(term);
+            if (rank == 0) {
+                continue;
+            }
+            SearchHit hit = new SearchHit(rank, document.username(), id);
+            if (after != null && SearchHit.RANKING.compare(hit, after) <= 0) {
+                continue;
+            }
+            top.offer(hit);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+
+        List<SearchHit> hits = new ArrayList<>(top);
+        hits.sort(SearchHit.RANKING);
+        return hits;
+    }
+
+    private Collection<UUID> usernameCandidates(String term) {
+        List<Set<UUID>> postings = new ArrayList<>();
+        for (int i = 0; i + MIN_SUBSTRING_LENGTH <= term.length(); i++) {
+            Set<UUID> posting = usernameTrigrams.get(term.substring(i, i + MIN_SUBSTRING_LENGTH));
+            if (posting == null) {
+                return Set.of();
+            }
+            postings.add(posting);
+        }
+        return intersect(postings);
+    }
+
+    // Bios match on word prefixes: every query word has to start some word of the bio
+    private Collection<UUID> bioCandidates(String term) {
+        List<Set<UUID>> postings = new ArrayList<>();
+        for (String word : tokens(term)) {
+            // Short words would pull in most of the vocabulary; the rank check still applies them
+            if (word.length() < MIN_SUBSTRING_LENGTH) {
+                continue;
+            }
+            Set<UUID> posting = new HashSet<>();
+            bioTokens.subMap(word, true, word + Character.MAX_VALUE, true).values().forEach(posting::addAll);
+            if (posting.isEmpty()) {
+                return Set.of();
+            }
+            postings.add(posting);
+        }
+        return intersect(postings);
+    }
+
+    private static Collection<UUID> intersect(List<Set<UUID>> postings) {
+        if (postings.isEmpty()) {
+            return Set.of();
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+        Set<UUID> result = new HashSet<>(postings.get(0));
+        for (int i = 1; i < postings.size() && !result.isEmpty(); i++) {
+            result.retainAll(postings.get(i));
+        }
+        return result;
+    }
+
+    private Document addPostings(Document document) {
+        names.add(new Name(document.username(), document.id()));
+        trigrams(document.username()).forEach(gram -> add(usernameTrigrams, gram, document.id()));
+        tokens(document.bio()).forEach(token -> add(bioTokens, token, document.id()));
+        return document;
+    }
+
+    private void removePostings(Document document) {
+        names.remove(new Name(document.username(), document.id()));
+        trigrams(document.username()).forEach(gram -> remove(usernameTrigrams, gram, document.id()));
+        tokens(document.bio()).forEach(token -> remove(bioTokens, token, document.id()));
+    }
+
+    private static void add(Map<String, Set<UUID>> postings, String key, UUID id) {
+        postings.compute(key, (k, ids) -> {
+            Set<UUID> posting = ids != null ? ids : ConcurrentHashMap.newKeySet();
+            posting.add(id);
+            return posting;
+        });
+    }
+
+    private static void remove(Map<String, Set<UUID>> postings, String key, UUID id) {
+        postings.computeIfPresent(key, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static Set<String> trigrams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + MIN_SUBSTRING_LENGTH <= text.length(); i++) {
+            grams.add(text.substring(i, i + MIN_SUBSTRING_LENGTH));
+        }
+        return grams;
+    }
+
+    private static Set<String> tokens(String text) {
+        return new LinkedHashSet<>(words(text));
+    }
+
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        for (String word : text.split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static String normalize(String query) {
+        return query == null ? "" : fold(query.trim());
+    }
+
+    private static String fold(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    private record Name(String username, UUID id) implements Comparable<Name> {
+
+        @Override
+        public int compareTo(Name other) {
+            int byName = username.compareTo(other.username);
+            return byName != 0 ? byName : id.compareTo(other.id);
+        }
+    }
+
+    private record Document(UUID id, String username, String bio) {
+
+        // Only the bio's words are kept, joined by single spaces, so word-prefix checks are plain string tests
+        static Document of(UUID id, String username, String bio) {
+            return new Document(id, fold(username), String.join(" ", words(fold(bio))));
+        }
+
+        int rank(String term) {
+            if (username.equals(term)) {
+                return 1;
+            }
+            if (username.startsWith(term)) {
+                return 2;
+            }
+            if (username.contains(term)) {
+                return 3;
+            }
+            String words = String.join(" ", words(term));
+            return !words.isEmpty() && (bio.startsWith(words) || bio.contains(" " + words)) ? 4 : 0;
+        }
+    }
+}
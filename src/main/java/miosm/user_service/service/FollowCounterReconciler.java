@@ -0,0 +1,48 @@
+package miosm.user_service.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import miosm.user_service.follow.FollowGraphStore;
+import miosm.user_service.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FollowCounterReconciler {
+
+    private final UserRepository userRepository;
+    private final FollowGraphStore followGraphStore;
+
+    @Value("${app.follows.counters.reconcile-batch-size:1000}")
+    private int batchSize;
+
+    @Scheduled(initialDelayString = "${app.follows.counters.reconcile-initial-delay:PT1M}",
+               fixedDelayString = "${app.follows.counters.reconcile-interval:PT10M}")
+    public void reconcile() {
+        long started = System.currentTimeMillis();
+        long users = 0;
+        try {
+            Pageable batch = PageRequest.of(0, batchSize);
+            List<UUID> ids = userRepository.findIds(batch);
+            while (!ids.isEmpty()) {
+                followGraphStore.reconcileCounts(ids);
+                users += ids.size();
+                if (ids.size() < batchSize) {
+                    break;
+                }
+                ids = userRepository.findIdsAfter(ids.get(ids.size() - 1), batch);
+            }
+            log.info("Reconciled follow counters for {} users in {} ms", users, System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            log.error("Follow counter reconciliation stopped after {} users: {}", users, e.getMessage(), e);
+        }
+    }
+}
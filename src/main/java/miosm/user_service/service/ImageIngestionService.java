@@ -0,0 +1,296 @@
+package miosm.user_service.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import miosm.user_service.cache.UserProfileCache;
+import miosm.user_service.entity.ImageKind;
+import miosm.user_service.entity.ImageUploadJob;
+import miosm.user_service.entity.ImageUploadStatus;
+import miosm.user_service.repository.ImageUploadJobRepository;
+import miosm.user_service.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImageIngestionService {
+
+    private final ImageUploadJobRepository jobRepository;
+    private final UserRepository userRepository;
+    private final MinioService minioService;
+    private final ImageRenditionService imageRenditionService;
+    private final OrphanImageCollector orphanImageCollector;
+    private final UserProfileCache profileCache;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.ingest.spool-dir:${java.io.tmpdir}/user-service-spool}")
+    private String spoolDir;
+
+    // Spool files live on local disk, so each instance only runs the jobs it accepted
+    @Value("${app.ingest.node-id:${HOSTNAME:local}}")
+    private String node;
+
+    @Value("${app.ingest.workers:4}")
+    private int workers;
+
+    @Value("${app.ingest.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${app.ingest.max-spooled-jobs:200}")
+    private int maxSpooledJobs;
+
+    @Value("${app.ingest.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.ingest.retry-backoff:PT2S}")
+    private Duration retryBackoff;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private final Set<UUID> inFlight = ConcurrentHashMap.newKeySet();
+    // Refreshed by the poller so a metrics scrape never runs a COUNT
+    private final AtomicLong pending = new AtomicLong();
+
+    private ThreadPoolExecutor executor;
+    private Timer lagTimer;
+    private Timer processingTimer;
+    private Counter failures;
+    private Counter rejections;
+
+    @PostConstruct
+    void start() throws IOException {
+        Files.createDirectories(Paths.get(spoolDir));
+
+        // The pool size stays the concurrency limit either way; virtual workers just stop costing a stack each
+        ThreadFactory threadFactory = virtualThreads
+                ? Thread.ofVirtual().name("image-ingest-", 1).factory()
+                : Thread.ofPlatform().name("image-ingest-", 1).daemon(true).factory();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                threadFactory,
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("users.images.ingest.queue.depth", executor, pool -> pool.getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("users.images.ingest.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+        Gauge.builder("users.images.ingest.pending", pending, AtomicLong::get)
+                .register(meterRegistry);
+        lagTimer = Timer.builder("users.images.ingest.lag").register(meterRegistry);
+        processingTimer = Timer.builder("users.images.ingest.duration").register(meterRegistry);
+        failures = Counter.builder("users.images.ingest.failures").register(meterRegistry);
+        rejections = Counter.builder("users.images.ingest.rejected").register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        // RUNNING rows are leftovers of a crash; spool files survive restarts, so they can run again
+        int reset = jobRepository.resetRunning(node);
+        if (reset > 0) {
+            log.info("Recovered {} interrupted image upload jobs", reset);
+        }
+        dispatchDue();
+    }
+
+    public ImageUploadJob submit(UUID userId, ImageKind kind, InputStream content, String contentType) throws IOException {
+        if (contentType == null || !contentType.startsWith("image/")) {
+            throw new IllegalArgumentException("File must be an image");
+        }
+        if (!userRepository.existsById(userId)) {
+            throw new IllegalArgumentException("User not found: " + userId);
+        }
+        // Jobs waiting for a retry keep their spool file too, so cap everything this node still holds
+        if (executor.getQueue().remainingCapacity() == 0
+                || jobRepository.countByNodeAndStatusIn(node, List.of(ImageUploadStatus.PENDING, ImageUploadStatus.RUNNING)) >= maxSpooledJobs) {
+            rejections.increment();
+            throw new RejectedExecutionException("Image ingestion queue is full");
+        }
+
+        UUID jobId = UUID.randomUUID();
+        Path spool = Paths.get(spoolDir, jobId.toString());
+        long size;
+        try {
+            size = Files.copy(content, spool);
+        } catch (IOException e) {
+            Files.deleteIfExists(spool);
+            throw e;
+        }
+
+        ImageUploadJob job = new ImageUploadJob();
+        job.setId(jobId);
+        job.setUserId(userId);
+        job.setKind(kind);
+        job.setNode(node);
+        job.setStatus(ImageUploadStatus.PENDING);
+        job.setContentType(contentType);
+        job.setSpoolPath(spool.toString());
+        job.setSize(size);
+        job.setNextAttemptAt(LocalDateTime.now());
+        ImageUploadJob saved = jobRepository.save(job);
+
+        // A full queue here is fine: the job is persisted and the poller will pick it up
+        dispatch(jobId);
+        return saved;
+    }
+
+    public ImageUploadJob getJob(UUID jobId) {
+        return jobRepository.findById(jobId)
+                .orElseThrow(() -> new IllegalArgumentException("Upload job not found: " + jobId));
+    }
+
+    @Scheduled(fixedDelayString = "${app.ingest.poll-interval:PT5S}")
+    public void dispatchDue() {
+        pending.set(jobRepository.countByNodeAndStatus(node, ImageUploadStatus.PENDING));
+        int capacity = executor.getQueue().remainingCapacity();
+        if (capacity == 0) {
+            return;
+        }
+        List<ImageUploadJob> due = jobRepository.findDue(node, LocalDateTime.now(), PageRequest.of(0, capacity));
+        due.forEach(job -> dispatch(job.getId()));
+    }
+
+    private void dispatch(UUID jobId) {
+        if (!inFlight.add(jobId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    process(jobId);
+                } finally {
+                    inFlight.remove(jobId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(jobId);
+            rejections.increment();
+        }
+    }
+
+    private void process(UUID jobId) {
+        ImageUploadJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null || job.getStatus() != ImageUploadStatus.PENDING) {
+            return;
+        }
+        lagTimer.record(Duration.between(job.getCreatedAt(), LocalDateTime.now()));
+
+        Path spool = Paths.get(job.getSpoolPath());
+        if (!Files.exists(spool)) {
+            fail(job, "Spool file is missing", true);
+            return;
+        }
+
+        job.setStatus(ImageUploadStatus.RUNNING);
+        job.setAttempts(job.getAttempts() + 1);
+        jobRepository.save(job);
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        boolean stored = false;
+        try {
+            String url;
+            if (job.getUploadedObjectKey() == null) {
+                try (InputStream content = Files.newInputStream(spool)) {
+                    url = minioService.uploadImage(content, job.getSize(), job.getContentType(), job.getKind().getFolder());
+                }
+                // Saved before the user row changes, so a retry reuses this object instead of uploading another
+                job.setUploadedObjectKey(minioService.objectKey(url));
+                jobRepository.save(job);
+            } else {
+                url = minioService.objectUrl(job.getUploadedObjectKey());
+            }
+            boolean renditionsReady = false;
+            try (InputStream content = Files.newInputStream(spool)) {
+                imageRenditionService.generate(minioService.objectKey(url), content);
+                renditionsReady = true;
+            } catch (Exception e) {
+                log.warn("Failed to generate renditions for {}: {}", url, e.getMessage());
+            }
+
+            // A concurrent swap between the read and the update leaks its object until the next sweep
+            String previousUrl = (job.getKind() == ImageKind.AVATAR
+                    ? userRepository.findAvatarUrlById(job.getUserId())
+                    : userRepository.findCoverImageUrlById(job.getUserId())).orElse(null);
+            int updated = job.getKind() == ImageKind.AVATAR
+                    ? userRepository.updateAvatarUrl(job.getUserId(), url, renditionsReady)
+                    : userRepository.updateCoverImageUrl(job.getUserId(), url, renditionsReady);
+            profileCache.evict(job.getUserId(), null);
+            if (updated == 0) {
+                orphanImageCollector.record(url);
+                fail(job, "User no longer exists", true);
+                return;
+            }
+            stored = true;
+            orphanImageCollector.record(previousUrl);
+
+            job.setStatus(ImageUploadStatus.DONE);
+            job.setResultUrl(url);
+            job.setLastError(null);
+            jobRepository.save(job);
+            Files.deleteIfExists(spool);
+            log.debug("Image upload job {} stored {} for user {}", jobId, url, job.getUserId());
+        } catch (Exception e) {
+            log.warn("Image upload job {} failed on attempt {}: {}", jobId, job.getAttempts(), e.getMessage());
+            boolean permanent = job.getAttempts() >= maxAttempts;
+            if (permanent && !stored && job.getUploadedObjectKey() != null) {
+                orphanImageCollector.record(minioService.objectUrl(job.getUploadedObjectKey()));
+            }
+            fail(job, e.getMessage(), permanent);
+        } finally {
+            sample.stop(processingTimer);
+        }
+    }
+
+    private void fail(ImageUploadJob job, String error, boolean permanent) {
+        failures.increment();
+        job.setLastError(error == null ? null : error.substring(0, Math.min(error.length(), 500)));
+        if (permanent) {
+            job.setStatus(ImageUploadStatus.FAILED);
+            try {
+                Files.deleteIfExists(Paths.get(job.getSpoolPath()));
+            } catch (IOException e) {
+                log.warn("Could not remove spool file {}: {}", job.getSpoolPath(), e.getMessage());
+            }
+        } else {
+            long backoff = retryBackoff.toMillis() << Math.min(job.getAttempts() - 1, 10);
+            job.setStatus(ImageUploadStatus.PENDING);
+            job.setNextAttemptAt(LocalDateTime.now().plus(Duration.ofMillis(backoff)));
+        }
+        jobRepository.save(job);
+    }
+}
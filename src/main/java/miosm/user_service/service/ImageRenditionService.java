@@ -0,0 +1,297 @@
+package miosm.user_service.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import miosm.user_service.cache.UserProfileCache;
+import miosm.user_service.entity.ImageKind;
+import miosm.user_service.repository.UserRepository;
+import miosm.user_service.util.ImageRenditions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImageRenditionService {
+
+    private static final String SPOOL_PREFIX = "rendition-";
+
+    private final MinioService minioService;
+    private final UserRepository userRepository;
+    private final UserProfileCache profileCache;
+
+    @Value("${app.images.max-pixels:40000000}")
+    private long maxPixels;
+
+    @Value("${app.images.jpeg-quality:0.82}")
+    private float jpegQuality;
+
+    @Value("${app.ingest.spool-dir:${java.io.tmpdir}/user-service-spool}")
+    private String spoolDir;
+
+    @Value("${app.images.renditions.workers:2}")
+    private int workers;
+
+    @Value("${app.images.renditions.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${app.images.renditions.max-spools:32}")
+    private int maxSpools;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private ThreadPoolExecutor executor;
+    private Semaphore spools;
+
+    @PostConstruct
+    void start() throws IOException {
+        Files.createDirectories(Paths.get(spoolDir));
+        // Nothing survives a restart to claim these; the ingestion spools in the same directory are named differently
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(Paths.get(spoolDir), SPOOL_PREFIX + "*")) {
+            leftovers.forEach(this::delete);
+        }
+        spools = new Semaphore(maxSpools);
+        ThreadFactory threadFactory = virtualThreads
+                ? Thread.ofVirtual().name("image-renditions-", 1).factory()
+                : Thread.ofPlatform().name("image-renditions-", 1).daemon(true).factory();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                threadFactory,
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            // Tasks that never started are dropped; their images simply stay without renditions
+            for (Runnable task : executor.shutdownNow()) {
+                if (task instanceof RenditionTask rendition) {
+                    discard(rendition.spool);
+                }
+            }
+        }
+    }
+
+    // Returns null once max-spools copies are on disk, in which case the renditions are built from MinIO instead
+    public Path spool(InputStream content) throws IOException {
+        if (!spools.tryAcquire()) {
+            log.debug("All {} rendition spools are in use, renditions will be read back from storage", maxSpools);
+            return null;
+        }
+        Path spool = null;
+        try {
+            spool = Files.createTempFile(Paths.get(spoolDir), SPOOL_PREFIX, null);
+            Files.copy(content, spool, StandardCopyOption.REPLACE_EXISTING);
+            return spool;
+        } catch (IOException e) {
+            if (spool != null) {
+                delete(spool);
+            }
+            spools.release();
+            throw e;
+        }
+    }
+
+    // Call after the new URL is stored. Renditions are built off the request path from the local copy, or from
+    // MinIO when spool is null, and only then marked ready; the spool file is always removed.
+    public void generateLater(UUID userId, ImageKind kind, String imageUrl, Path spool) {
+        try {
+            executor.execute(new RenditionTask(userId, kind, imageUrl, spool));
+        } catch (RejectedExecutionException e) {
+            log.warn("Rendition queue is full, {} is served without renditions", imageUrl);
+            discard(spool);
+        }
+    }
+
+    public void discard(Path spool) {
+        if (spool == null) {
+            return;
+        }
+        delete(spool);
+        spools.release();
+    }
+
+    private void delete(Path spool) {
+        try {
+            Files.deleteIfExists(spool);
+        } catch (IOException e) {
+            log.warn("Could not remove spool file {}: {}", spool, e.getMessage());
+        }
+    }
+
+    // Keeps the spool reachable from the queue so shutdown can remove the files of tasks that never ran
+    private final class RenditionTask implements Runnable {
+
+        private final UUID userId;
+        private final ImageKind kind;
+        private final String imageUrl;
+        private final Path spool;
+
+        private RenditionTask(UUID userId, ImageKind kind, String imageUrl, Path spool) {
+            this.userId = userId;
+            this.kind = kind;
+            this.imageUrl = imageUrl;
+            this.spool = spool;
+        }
+
+        @Override
+        public void run() {
+            generateAndPublish(userId, kind, imageUrl, spool);
+        }
+    }
+
+    private void generateAndPublish(UUID userId, ImageKind kind, String imageUrl, Path spool) {
+        try {
+            if (spool != null) {
+                try (InputStream original = Files.newInputStream(spool)) {
+                    generate(minioService.objectKey(imageUrl), original);
+                }
+            } else {
+                generate(imageUrl);
+            }
+            int marked = kind == ImageKind.AVATAR
+                    ? userRepository.markAvatarRenditionsReady(userId, imageUrl)
+                    : userRepository.markCoverImageRenditionsReady(userId, imageUrl);
+            if (marked > 0) {
+                profileCache.evict(userId, null);
+            }
+        } catch (Exception e) {
+            // The original stays usable; its rendition URLs are simply never advertised
+            log.warn("Failed to generate renditions for {}: {}", imageUrl, e.getMessage());
+        } finally {
+            discard(spool);
+        }
+    }
+
+    public void generate(String imageUrl) throws Exception {
+        String objectKey = minioService.objectKey(imageUrl);
+        try (InputStream original = minioService.getObject(objectKey)) {
+            generate(objectKey, original);
+        }
+    }
+
+    public void generate(String objectKey, InputStream original) throws Exception {
+        int[] sizes = ImageRenditions.sizesFor(objectKey);
+        if (sizes.length == 0) {
+            return;
+        }
+        boolean square = objectKey.startsWith(ImageRenditions.AVATARS + "/");
+
+        // Decoding at a reduced resolution keeps a 48MP photo from turning into a 190MB bitmap
+        BufferedImage source = decode(original, sizes[sizes.length - 1], square);
+        if (square) {
+            source = cropToSquare(source);
+        }
+
+        for (int size : sizes) {
+            BufferedImage rendition = square ? resize(source, size, size) : resizeToWidth(source, size);
+            minioService.putObject(ImageRenditions.renditionKey(objectKey, size), encode(rendition), ImageRenditions.CONTENT_TYPE);
+        }
+        log.debug("Generated {} renditions for {}", sizes.length, objectKey);
+    }
+
+    private BufferedImage decode(InputStream original, int largestTarget, boolean square) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(original)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IllegalArgumentException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    throw new IllegalArgumentException("Image is too large: " + width + "x" + height);
+                }
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                int basis = square ? Math.min(width, height) : width;
+                int subsampling = Math.max(1, basis / (largestTarget * 2));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage cropToSquare(BufferedImage image) {
+        int side = Math.min(image.getWidth(), image.getHeight());
+        int x = (image.getWidth() - side) / 2;
+        int y = (image.getHeight() - side) / 2;
+        return image.getSubimage(x, y, side, side);
+    }
+
+    private static BufferedImage resizeToWidth(BufferedImage image, int width) {
+        int targetWidth = Math.min(width, image.getWidth());
+        int targetHeight = Math.max(1, Math.round((float) image.getHeight() * targetWidth / image.getWidth()));
+        return resize(image, targetWidth, targetHeight);
+    }
+
+    private static BufferedImage resize(BufferedImage image, int width, int height) {
+        // JPEG has no alpha channel, so transparent areas are flattened onto white
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private byte[] encode(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            // Writing only the pixels drops EXIF, GPS and ICC metadata from the original
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+}
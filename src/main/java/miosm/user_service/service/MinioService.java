@@ -2,36 +2,75 @@ package miosm.user_service.service;
 
 import io.minio.*;
 import io.minio.errors.*;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import io.minio.messages.Item;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import miosm.user_service.cache.ImageCache;
+import miosm.user_service.util.CountingInputStream;
+import miosm.user_service.util.ImageRenditions;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.IOException;
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
 
+@Slf4j
 @Service
+@RequiredArgsConstructor
 public class MinioService {
 
-    @Value("${minio.endpoint}")
-    private String endpoint;
+    private static final String NO_SUCH_BUCKET = "NoSuchBucket";
 
-    @Value("${minio.access-key}")
-    private String accessKey;
+    private final MinioClient minioClient;
+    private final ImageCache imageCache;
+    private final MeterRegistry meterRegistry;
 
-    @Value("${minio.secret-key}")
-    private String secretKey;
+    @Value("${minio.endpoint}")
+    private String endpoint;
 
     @Value("${minio.bucket}")
     private String bucket;
 
-    private MinioClient getMinioClient() {
-        return MinioClient.builder()
-                .endpoint(endpoint)
-                .credentials(accessKey, secretKey)
-                .build();
+    @Value("${minio.bootstrap.enabled:true}")
+    private boolean bootstrapEnabled;
+
+    @Value("${minio.upload.part-size:5MB}")
+    private DataSize partSize;
+
+    // A monitor held across the bucket round trips would pin a virtual thread to its carrier
+    private final ReentrantLock bucketLock = new ReentrantLock();
+
+    private volatile boolean bucketVerified;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void bootstrapBucket() {
+        if (!bootstrapEnabled) {
+            return;
+        }
+        try {
+            ensureBucket();
+            log.info("MinIO bucket '{}' verified", bucket);
+        } catch (Exception e) {
+            log.warn("Could not verify MinIO bucket '{}' at startup, will retry on first upload: {}", bucket, e.getMessage());
+        }
     }
 
     public String uploadImage(MultipartFile file, String folder) throws Exception {
@@ -44,30 +83,8 @@ public class MinioService {
             throw new IllegalArgumentException("File must be an image");
         }
 
-        MinioClient minioClient = getMinioClient();
-
-        boolean bucketExists = minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucket).build());
-        if (!bucketExists) {
-            minioClient.makeBucket(MakeBucketArgs.builder().bucket(bucket).build());
-
-            String policy = """
-                {
-                    "Version": "2012-10-17",
-                    "Statement": [
-                        {
-                            "Effect": "Allow",
-                            "Principal": {"AWS": "*"},
-                            "Action": ["s3:GetObject"],
-                            "Resource": ["arn:aws:s3:::%s/*"]
-                        }
-                    ]
-                }
-                """.formatted(bucket);
-            
-            minioClient.setBucketPolicy(SetBucketPolicyArgs.builder()
-                    .bucket(bucket)
-                    .config(policy)
-                    .build());
+        if (!bucketVerified) {
+            ensureBucket();
         }
 
         String originalFilename = file.getOriginalFilename();
@@ -76,35 +93,212 @@ public class MinioService {
             extension = originalFilename.substring(originalFilename.lastIndexOf("."));
         }
         String fileName = folder + "/" + UUID.randomUUID() + extension;
-        
-        minioClient.putObject(
-                PutObjectArgs.builder()
-                        .bucket(bucket)
-                        .object(fileName)
-                        .stream(file.getInputStream(), file.getSize(), -1)
-                        .contentType(contentType)
-                        .build()
-        );
+
+        try {
+            putObject(file, fileName, contentType);
+        } catch (ErrorResponseException e) {
+            if (!NO_SUCH_BUCKET.equals(e.errorResponse().code())) {
+                throw e;
+            }
+            log.warn("MinIO bucket '{}' disappeared, recreating it", bucket);
+            bucketVerified = false;
+            ensureBucket();
+            putObject(file, fileName, contentType);
+        }
 
         return endpoint + "/" + bucket + "/" + fileName;
     }
 
+    public String uploadImage(InputStream content, long size, String contentType, String folder) throws Exception {
+        if (contentType == null || !contentType.startsWith("image/")) {
+            throw new IllegalArgumentException("File must be an image");
+        }
+
+        if (!bucketVerified) {
+            ensureBucket();
+        }
+
+        String fileName = folder + "/" + UUID.randomUUID() + extensionFor(contentType);
+
+        // The client buffers at most one part; an unknown size switches it to a multipart upload
+        CountingInputStream counted = new CountingInputStream(content, bytes -> recordBytes("put", bytes));
+        try (counted) {
+            observe("put", () -> minioClient.putObject(
+                    PutObjectArgs.builder()
+                            .bucket(bucket)
+                            .object(fileName)
+                            .stream(counted, size > 0 ? size : -1, partSize.toBytes())
+                            .contentType(contentType)
+                            .build()
+            ));
+        } catch (ErrorResponseException e) {
+            // A streamed body cannot be replayed, so only make sure the next upload recreates the bucket
+            if (NO_SUCH_BUCKET.equals(e.errorResponse().code())) {
+                bucketVerified = false;
+            }
+            throw e;
+        }
+
+        return endpoint + "/" + bucket + "/" + fileName;
+    }
+
+    public static String extensionFor(String contentType) {
+        return switch (contentType.toLowerCase()) {
+            case "image/jpeg", "image/jpg" -> ".jpg";
+            case "image/png" -> ".png";
+            case "image/gif" -> ".gif";
+            case "image/webp" -> ".webp";
+            case "image/avif" -> ".avif";
+            default -> "";
+        };
+    }
+
     public void deleteImage(String imageUrl) throws Exception {
         if (imageUrl == null || !imageUrl.startsWith(endpoint)) {
             return;
         }
 
-        MinioClient minioClient = getMinioClient();
-        
-        String objectName = imageUrl.replace(endpoint + "/" + bucket + "/", "");
-        
-        try {
-            minioClient.removeObject(
-                    RemoveObjectArgs.builder()
+        String objectName = objectKey(imageUrl);
+
+        removeObject(objectName);
+        for (String renditionKey : ImageRenditions.renditionKeys(objectName)) {
+            removeObject(renditionKey);
+        }
+    }
+
+    public void putObject(String objectName, byte[] content, String contentType) throws Exception {
+        observe("put", () -> minioClient.putObject(
+                PutObjectArgs.builder()
+                        .bucket(bucket)
+                        .object(objectName)
+                        .stream(new ByteArrayInputStream(content), content.length, -1)
+                        .contentType(contentType)
+                        .build()
+        ));
+        recordBytes("put", content.length);
+    }
+
+    // The timer covers time to first byte; bytes are recorded when the caller closes the stream
+    public InputStream getObject(String objectName) throws Exception {
+        InputStream content = observe("get", () -> minioClient.getObject(
+                GetObjectArgs.builder()
+                        .bucket(bucket)
+                        .object(objectName)
+                        .build()
+        ));
+        return new CountingInputStream(content, bytes -> recordBytes("get", bytes));
+    }
+
+    public InputStream getObject(String objectName, long offset, long length) throws Exception {
+        InputStream content = observe("get", () -> minioClient.getObject(
+                GetObjectArgs.builder()
+                        .bucket(bucket)
+                        .object(objectName)
+                        .offset(offset)
+                        .length(length)
+                        .build()
+        ));
+        return new CountingInputStream(content, bytes -> recordBytes("get", bytes));
+    }
+
+    // Form fields for a browser POST to bucketUrl(); the caller adds key and Content-Type with the same values
+    public Map<String, String> presignedPostForm(String objectName, String contentType, long size, Instant expiresAt) throws Exception {
+        if (!bucketVerified) {
+            ensureBucket();
+        }
+        PostPolicy policy = new PostPolicy(bucket, ZonedDateTime.ofInstant(expiresAt, ZoneOffset.UTC));
+        policy.addEqualsCondition("key", objectName);
+        policy.addEqualsCondition("Content-Type", contentType);
+        policy.addContentLengthRangeCondition(size, size);
+        return observe("presign", () -> minioClient.getPresignedPostFormData(policy));
+    }
+
+    public String bucketUrl() {
+        return endpoint + "/" + bucket;
+    }
+
+    public String objectUrl(String objectName) {
+        return endpoint + "/" + bucket + "/" + objectName;
+    }
+
+    public StatObjectResponse statObject(String objectName) throws Exception {
+        return observe("stat", () -> minioClient.statObject(
+                StatObjectArgs.builder()
+                        .bucket(bucket)
+                        .object(objectName)
+                        .build()
+        ));
+    }
+
+    public boolean isManagedUrl(String imageUrl) {
+        return imageUrl != null
+                && imageUrl.startsWith(endpoint + "/" + bucket + "/")
+                && !imageUrl.contains("..");
+    }
+
+    // Returns the keys MinIO could not delete, mapped to the error code it reported
+    public Map<String, String> removeObjects(List<String> objectNames) throws Exception {
+        List<DeleteObject> objects = objectNames.stream().map(DeleteObject::new).toList();
+        Map<String, String> failed = new HashMap<>();
+        // The request is sent lazily while the results are iterated, so time the iteration
+        observe("remove-batch", () -> {
+            Iterable<Result<DeleteError>> results = minioClient.removeObjects(
+                    RemoveObjectsArgs.builder()
                             .bucket(bucket)
-                            .object(objectName)
+                            .objects(objects)
                             .build()
             );
+            for (Result<DeleteError> result : results) {
+                DeleteError error = result.get();
+                failed.put(error.objectName(), error.code());
+                recordError("remove-batch", error.code());
+            }
+            return null;
+        });
+        objectNames.forEach(imageCache::invalidate);
+        return failed;
+    }
+
+    // Returns at most limit objects after startAfter (null for the first page), limit being at most 1000
+    public List<Item> listObjects(String prefix, String startAfter, int limit) throws Exception {
+        // Pages are fetched lazily while the results are iterated, so time the iteration
+        return observe("list", () -> {
+            Iterable<Result<Item>> results = minioClient.listObjects(
+                    ListObjectsArgs.builder()
+                            .bucket(bucket)
+                            .prefix(prefix)
+                            .startAfter(startAfter)
+                            .maxKeys(limit)
+                            .recursive(true)
+                            .build()
+            );
+            List<Item> items = new ArrayList<>(limit);
+            for (Result<Item> result : results) {
+                items.add(result.get());
+                if (items.size() == limit) {
+                    break;
+                }
+            }
+            return items;
+        });
+    }
+
+    public String objectKey(String imageUrl) {
+        return imageUrl.replace(endpoint + "/" + bucket + "/", "");
+    }
+
+    private void removeObject(String objectName) throws Exception {
+        imageCache.invalidate(objectName);
+        try {
+            observe("remove", () -> {
+                minioClient.removeObject(
+                        RemoveObjectArgs.builder()
+                                .bucket(bucket)
+                                .object(objectName)
+                                .build()
+                );
+                return null;
+            });
         } catch (ErrorResponseException e) {
             if (e.errorResponse().code().equals("NoSuchKey")) {
                 return;
@@ -112,4 +306,103 @@ public class MinioService {
             throw e;
         }
     }
-} 
\ No newline at end of file
+
+    private void putObject(MultipartFile file, String objectName, String contentType) throws Exception {
+        try (InputStream content = file.getInputStream()) {
+            observe("put", () -> minioClient.putObject(
+                    PutObjectArgs.builder()
+                            .bucket(bucket)
+                            .object(objectName)
+                            .stream(content, file.getSize(), -1)
+                            .contentType(contentType)
+                            .build()
+            ));
+        }
+        recordBytes("put", file.getSize());
+    }
+
+    @FunctionalInterface
+    private interface StorageCall<T> {
+        T call() throws Exception;
+    }
+
+    private <T> T observe(String operation, StorageCall<T> call) throws Exception {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            return call.call();
+        } catch (ErrorResponseException e) {
+            outcome = "error";
+            recordError(operation, e.errorResponse().code());
+            throw e;
+        } catch (Exception e) {
+            outcome = "error";
+            recordError(operation, e.getClass().getSimpleName());
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("users.storage.requests")
+                    .description("MinIO calls by operation")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    private void recordError(String operation, String code) {
+        meterRegistry.counter("users.storage.errors", "operation", operation, "code", code).increment();
+    }
+
+    private void recordBytes(String operation, long bytes) {
+        DistributionSummary.builder("users.storage.bytes")
+                .baseUnit("bytes")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .record(bytes);
+    }
+
+    private void ensureBucket() throws Exception {
+        bucketLock.lock();
+        try {
+            if (bucketVerified) {
+                return;
+            }
+            createBucketIfMissing();
+            bucketVerified = true;
+        } finally {
+            bucketLock.unlock();
+        }
+    }
+
+    private void createBucketIfMissing() throws Exception {
+        boolean bucketExists = observe("bucket-exists",
+                () -> minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucket).build()));
+        if (!bucketExists) {
+            observe("make-bucket", () -> {
+                minioClient.makeBucket(MakeBucketArgs.builder().bucket(bucket).build());
+                return null;
+            });
+
+            String policy = """
+                {
+                    "Version": "2012-10-17",
+                    "Statement": [
+                        {
+                            "Effect": "Allow",
+                            "Principal": {"AWS": "*"},
+                            "Action": ["s3:GetObject"],
+                            "Resource": ["arn:aws:s3:::%s/*"]
+                        }
+                    ]
+                }
+                """.formatted(bucket);
+
+            observe("set-bucket-policy", () -> {
+                minioClient.setBucketPolicy(SetBucketPolicyArgs.builder()
+                        .bucket(bucket)
+                        .config(policy)
+                        .build());
+                return null;
+            });
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package miosm.user_service.service;
+
+import io.minio.messages.Item;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import miosm.user_service.entity.OrphanImage;
+import miosm.user_service.repository.OrphanImageRepository;
+import miosm.user_service.repository.UserRepository;
+import miosm.user_service.repository.projection.UserImageView;
+import miosm.user_service.util.ImageRenditions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrphanImageCollector {
+
+    // S3 DeleteObjects accepts at most 1000 keys per request
+    private static final int MAX_KEYS_PER_REQUEST = 1000;
+
+    private final OrphanImageRepository orphanImageRepository;
+    private final UserRepository userRepository;
+    private final MinioService minioService;
+
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    @Value("${app.gc.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.gc.max-batches-per-run:10}")
+    private int maxBatchesPerRun;
+
+    @Value("${app.gc.batch-pause:PT1S}")
+    private Duration batchPause;
+
+    @Value("${app.gc.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${app.gc.retry-backoff:PT1M}")
+    private Duration retryBackoff;
+
+    @Value("${app.gc.sweep.grace-period:P1D}")
+    private Duration sweepGracePeriod;
+
+    @Value("${app.gc.grace-period:10m}")
+    private Duration gracePeriod;
+
+    @Value("${app.cache.profile.ttl:10m}")
+    private Duration profileTtl;
+
+    // Records an image that is no longer referenced; renditions are expanded when it is collected
+    public void record(String imageUrl) {
+        if (!minioService.isManagedUrl(imageUrl)) {
+            return;
+        }
+        String objectKey = minioService.objectKey(imageUrl);
+        // Inside a transaction the row waits for the commit: after a rollback the image is still referenced,
+        // and a failed insert cannot mark the caller's transaction rollback-only
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    insert(objectKey);
+                }
+            });
+        } else {
+            insert(objectKey);
+        }
+    }
+
+    private void insert(String objectKey) {
+        // Cached profiles on other instances keep serving the old URL until they expire
+        LocalDateTime collectAt = LocalDateTime.now().plus(gracePeriod.compareTo(profileTtl) < 0 ? profileTtl : gracePeriod);
+        try {
+            orphanImageRepository.insertIgnore(UUID.randomUUID(), objectKey, collectAt);
+        } catch (Exception e) {
+            // The full-bucket sweep picks up anything that could not be recorded here
+            log.warn("Failed to record orphan image {}: {}", objectKey, e.getMessage());
+        }
+    }
+
+    // Unlike record, a failure here fails the presign: without the row the upload could neither be claimed nor collected
+    public void recordPendingUpload(String objectKey, Instant collectAt) {
+        orphanImageRepository.insertPendingUpload(UUID.randomUUID(), objectKey,
+                LocalDateTime.ofInstant(collectAt, ZoneId.systemDefault()));
+    }
+
+    // True for exactly one caller per issued upload
+    public boolean claimPendingUpload(String objectKey) {
+        return orphanImageRepository.deletePendingUpload(objectKey) > 0;
+    }
+
+    @Scheduled(fixedDelayString = "${app.gc.interval:PT1M}", initialDelayString = "${app.gc.interval:PT1M}")
+    public void collect() {
+        // Each batch fans out into originals plus renditions, so keep the request under the S3 limit
+        int limit = Math.max(1, Math.min(batchSize, MAX_KEYS_PER_REQUEST / (1 + ImageRenditions.AVATAR_SIZES.length)));
+
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<OrphanImage> due = orphanImageRepository.findDue(LocalDateTime.now(), PageRequest.of(0, limit));
+            if (due.isEmpty()) {
+                return;
+            }
+            removeBatch(due);
+            if (due.size() < limit) {
+                return;
+            }
+            try {
+                Thread.sleep(batchPause.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void removeBatch(List<OrphanImage> orphans) {
+        List<String> keys = new ArrayList<>();
+        for (OrphanImage orphan : orphans) {
+            keys.add(orphan.getObjectKey());
+            keys.addAll(ImageRenditions.renditionKeys(orphan.getObjectKey()));
+        }
+
+        Map<String, String> failed;
+        try {
+            failed = minioService.removeObjects(keys);
+        } catch (Exception e) {
+            log.warn("Failed to remove {} orphan images: {}", orphans.size(), e.getMessage());
+            orphans.forEach(orphan -> retryLater(orphan, e.getMessage()));
+            orphanImageRepository.saveAll(orphans);
+            return;
+        }
+
+        List<OrphanImage> removed = new ArrayList<>();
+        List<OrphanImage> retried = new ArrayList<>();
+        for (OrphanImage orphan : orphans) {
+            String error = errorFor(orphan.getObjectKey(), failed);
+            if (error == null) {
+                removed.add(orphan);
+            } else if (orphan.getAttempts() + 1 >= maxAttempts) {
+                log.error("Giving up on orphan image {} after {} attempts: {}",
+                        orphan.getObjectKey(), orphan.getAttempts() + 1, error);
+                removed.add(orphan);
+            } else {
+                retryLater(orphan, error);
+                retried.add(orphan);
+            }
+        }
+        orphanImageRepository.deleteAllInBatch(removed);
+        orphanImageRepository.saveAll(retried);
+        log.debug("Removed {} orphan images, {} scheduled for retry", removed.size(), retried.size());
+    }
+
+    private static String errorFor(String objectKey, Map<String, String> failed) {
+        String error = failed.get(objectKey);
+        if (error != null) {
+            return error;
+        }
+        for (String renditionKey : ImageRenditions.renditionKeys(objectKey)) {
+            error = failed.get(renditionKey);
+            if (error != null) {
+                return renditionKey + ": " + error;
+            }
+        }
+        return null;
+    }
+
+    private void retryLater(OrphanImage orphan, String error) {
+        int attempts = orphan.getAttempts() + 1;
+        orphan.setAttempts(attempts);
+        orphan.setLastError(error == null ? null : error.substring(0, Math.min(error.length(), 500)));
+        orphan.setNextAttemptAt(LocalDateTime.now().plus(retryBackoff.multipliedBy(1L << Math.min(attempts - 1, 10))));
+    }
+
+    // Safety net for leaks from before the outbox existed or from lost records; disabled unless a cron is set
+    @Scheduled(cron = "${app.gc.sweep.cron:-}")
+    public void sweep() {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Set<String> referenced = referencedBases();
+            Instant cutoff = Instant.now().minus(sweepGracePeriod);
+            int recorded = 0;
+
+            for (String folder : List.of(ImageRenditions.AVATARS, ImageRenditions.COVERS)) {
+                List<Item> page = minioService.listObjects(folder + "/", null, MAX_KEYS_PER_REQUEST);
+                while (!page.isEmpty()) {
+                    for (Item item : page) {
+                        if (item.isDir() || item.lastModified().toInstant().isAfter(cutoff)) {
+                            continue;
+                        }
+                        String objectKey = item.objectName();
+                        if (referenced.contains(baseOf(objectKey))) {
+                            continue;
+                        }
+                        // Renditions are removed together with their original, so only record strays
+                        if (isRendition(objectKey) && hasOriginal(objectKey)) {
+                            continue;
+                        }
+                        orphanImageRepository.insertIgnore(UUID.randomUUID(), objectKey, LocalDateTime.now());
+                        recorded++;
+                    }
+                    String last = page.get(page.size() - 1).objectName();
+                    page = minioService.listObjects(folder + "/", last, MAX_KEYS_PER_REQUEST);
+                }
+            }
+            log.info("Orphan image sweep recorded {} objects", recorded);
+        } catch (Exception e) {
+            log.error("Orphan image sweep failed: {}", e.getMessage(), e);
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    private Set<String> referencedBases() {
+        Set<String> bases = new HashSet<>();
+        List<UserImageView> page = userRepository.findImageViews(PageRequest.of(0, batchSize));
+        while (!page.isEmpty()) {
+            for (UserImageView view : page) {
+                addBase(bases, view.getAvatarUrl());
+                addBase(bases, view.getCoverImageUrl());
+            }
+            UUID last = page.get(page.size() - 1).getId();
+            page = userRepository.findImageViewsAfter(last, PageRequest.of(0, batchSize));
+        }
+        return bases;
+    }
+
+    private void addBase(Set<String> bases, String imageUrl) {
+        if (minioService.isManagedUrl(imageUrl)) {
+            bases.add(baseOf(minioService.objectKey(imageUrl)));
+        }
+    }
+
+    // avatars/<uuid>.png and avatars/<uuid>_128.jpg both map to avatars/<uuid>
+    private static String baseOf(String objectKey) {
+        int slash = objectKey.lastIndexOf('/');
+        int dot = objectKey.lastIndexOf('.');
+        String base = dot > slash ? objectKey.substring(0, dot) : objectKey;
+        int underscore = base.lastIndexOf('_');
+        return underscore > slash ? base.substring(0, underscore) : base;
+    }
+
+    private static boolean isRendition(String objectKey) {
+        int slash = objectKey.lastIndexOf('/');
+        return objectKey.lastIndexOf('_') > slash;
+    }
+
+    private boolean hasOriginal(String renditionKey) throws Exception {
+        return !minioService.listObjects(baseOf(renditionKey) + ".", null, 1).isEmpty();
+    }
+}
@@ -0,0 +1,145 @@
+package miosm.user_service.service;
+
+import io.minio.StatObjectResponse;
+import io.minio.errors.ErrorResponseException;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import miosm.user_service.cache.UserProfileCache;
+import miosm.user_service.dto.PresignedUploadDto;
+import miosm.user_service.dto.UserResponseDto;
+import miosm.user_service.entity.ImageKind;
+import miosm.user_service.entity.User;
+import miosm.user_service.mapper.UserResponseMapper;
+import miosm.user_service.repository.UserRepository;
+import miosm.user_service.util.UploadTicket;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+// Only registered when app.upload.presign.secret is set; the upload endpoints answer 503 otherwise
+@Service
+@ConditionalOnProperty(name = "app.upload.presign.secret")
+@RequiredArgsConstructor
+public class PresignedUploadService {
+
+    private static final Set<String> ALLOWED_TYPES = Set.of("image/jpeg", "image/png", "image/gif", "image/webp");
+    private static final int MIN_SECRET_LENGTH = 32;
+
+    private final MinioService minioService;
+    private final ImageRenditionService imageRenditionService;
+    private final OrphanImageCollector orphanImageCollector;
+    private final UserRepository userRepository;
+    private final UserResponseMapper userResponseMapper;
+    private final UserProfileCache profileCache;
+
+    @Value("${app.upload.max-size:10MB}")
+    private DataSize maxUploadSize;
+
+    @Value("${app.upload.presign.expiry:PT10M}")
+    private Duration expiry;
+
+    @Value("${app.upload.presign.secret}")
+    private String secret;
+
+    @Value("${minio.secret-key}")
+    private String storageSecret;
+
+    @PostConstruct
+    void checkSecret() {
+        // Sharing the storage key would let anyone holding one forge the other
+        if (secret.getBytes(StandardCharsets.UTF_8).length < MIN_SECRET_LENGTH || secret.equals(storageSecret)) {
+            throw new IllegalStateException("app.upload.presign.secret must be at least " + MIN_SECRET_LENGTH +
+                    " bytes and differ from minio.secret-key");
+        }
+    }
+
+    public PresignedUploadDto presign(UUID userId, ImageKind kind, String contentType, long size) throws Exception {
+        if (contentType == null || !ALLOWED_TYPES.contains(contentType.toLowerCase())) {
+            throw new IllegalArgumentException("Unsupported image type: " + contentType);
+        }
+        if (size <= 0 || size > maxUploadSize.toBytes()) {
+            throw new IllegalArgumentException("Image size must be between 1 byte and " + maxUploadSize);
+        }
+        if (!userRepository.existsById(userId)) {
+            throw new IllegalArgumentException("User not found: " + userId);
+        }
+
+        String type = contentType.toLowerCase();
+        String objectKey = kind.getFolder() + "/" + UUID.randomUUID() + MinioService.extensionFor(type);
+        Instant expiresAt = Instant.now().plus(expiry);
+
+        // Collected unless completion claims it first; completion is allowed until one more expiry window has passed
+        orphanImageCollector.recordPendingUpload(objectKey, expiresAt.plus(expiry));
+
+        // Storage enforces the declared size and the exact type, so the form cannot be reused for anything else
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("key", objectKey);
+        fields.put("Content-Type", type);
+        fields.putAll(minioService.presignedPostForm(objectKey, type, size, expiresAt));
+
+        String token = new UploadTicket(userId, kind, objectKey, type, size, expiresAt).sign(secret);
+        return new PresignedUploadDto(minioService.bucketUrl(), objectKey, token, fields, expiresAt);
+    }
+
+    public UserResponseDto complete(UUID userId, ImageKind kind, String objectKey, String uploadToken) throws Exception {
+        UploadTicket ticket = UploadTicket.verify(uploadToken, secret);
+        if (!ticket.userId().equals(userId) || ticket.kind() != kind || !ticket.objectKey().equals(objectKey)) {
+            throw new IllegalArgumentException("Upload token does not match this upload");
+        }
+        // The upload itself must happen before expiry; completion gets the same window again
+        if (Instant.now().isAfter(ticket.expiresAt().plus(expiry))) {
+            throw new IllegalArgumentException("Upload token has expired");
+        }
+
+        StatObjectResponse stat;
+        try {
+            stat = minioService.statObject(objectKey);
+        } catch (ErrorResponseException e) {
+            if ("NoSuchKey".equals(e.errorResponse().code())) {
+                throw new IllegalArgumentException("Upload has not been received: " + objectKey);
+            }
+            throw e;
+        }
+
+        String url = minioService.objectUrl(objectKey);
+        if (stat.size() != ticket.size() || !ticket.contentType().equalsIgnoreCase(stat.contentType())) {
+            minioService.deleteImage(url);
+            throw new IllegalArgumentException("Uploaded object does not match the declared type or size");
+        }
+
+        // Removing the pending record is the single-use check: a replayed token finds nothing left to claim
+        if (!orphanImageCollector.claimPendingUpload(objectKey)) {
+            throw new IllegalArgumentException("Upload has already been completed: " + objectKey);
+        }
+
+        String previousUrl = (kind == ImageKind.AVATAR
+                ? userRepository.findAvatarUrlById(userId)
+                : userRepository.findCoverImageUrlById(userId)).orElse(null);
+        int updated = kind == ImageKind.AVATAR
+                ? userRepository.updateAvatarUrl(userId, url, false)
+                : userRepository.updateCoverImageUrl(userId, url, false);
+        profileCache.evict(userId, null);
+        if (updated == 0) {
+            orphanImageCollector.record(url);
+            throw new IllegalArgumentException("User not found: " + userId);
+        }
+        if (!url.equals(previousUrl)) {
+            orphanImageCollector.record(previousUrl);
+        }
+        // The bytes went straight to storage, so the worker reads them back from there
+        imageRenditionService.generateLater(userId, kind, url, null);
+
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new IllegalArgumentException("User not found: " + userId));
+        return userResponseMapper.toDto(user);
+    }
+}
@@ -0,0 +1,11 @@
+package miosm.user_service.service;
+
+import java.util.UUID;
+
+// Still an IllegalArgumentException, so callers that map those to 400 keep working; the upload endpoints answer 404
+public class UserNotFoundException extends IllegalArgumentException {
+
+    public UserNotFoundException(UUID id) {
+        super("User not found: " + id);
+    }
+}
@@ -1,12 +1,17 @@
 package miosm.user_service.service;
 
 import miosm.user_service.dto.CreateUserRequestDto;
+import miosm.user_service.dto.CursorPageDto;
 import miosm.user_service.dto.UpdateUserRequestDto;
+import miosm.user_service.dto.UserCardDto;
+import miosm.user_service.dto.UserBatchResponseDto;
 import miosm.user_service.dto.UserResponseDto;
 import miosm.user_service.entity.User;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -16,31 +21,39 @@ public interface UserService {
 
     UserResponseDto findUserById(UUID id);
 
+    UserBatchResponseDto findUsers(List<UUID> ids, List<String> usernames);
+
     UserResponseDto createUser(CreateUserRequestDto dto);
 
     UserResponseDto updateUser(UUID id, UpdateUserRequestDto dto);
 
     UserResponseDto uploadAvatar(UUID id, MultipartFile file);
 
+    UserResponseDto uploadAvatar(UUID id, InputStream content, long size, String contentType);
+
     UserResponseDto deleteAvatar(UUID id);
 
     UserResponseDto uploadCoverImage(UUID id, MultipartFile file);
 
+    UserResponseDto uploadCoverImage(UUID id, InputStream content, long size, String contentType);
+
     UserResponseDto deleteCoverImage(UUID id);
 
     void deleteUser(UUID id);
     
-    List<UserResponseDto> searchUsers(String query);
+    CursorPageDto<UserCardDto> searchUsers(String query, String cursor, int limit);
 
     void followUser(UUID followerId, UUID followingId);
     
     void unfollowUser(UUID followerId, UUID followingId);
     
     boolean isFollowing(UUID followerId, UUID followingId);
+
+    Map<UUID, Boolean> getFollowingStatus(UUID followerId, List<UUID> followingIds);
     
-    List<UserResponseDto> getFollowers(UUID userId);
+    CursorPageDto<UserCardDto> getFollowers(UUID userId, String cursor, int limit);
     
-    List<UserResponseDto> getFollowing(UUID userId);
+    CursorPageDto<UserCardDto> getFollowing(UUID userId, String cursor, int limit);
     
     Long getFollowersCount(UUID userId);
     
@@ -1,51 +1,158 @@
 package miosm.user_service.service.serviceImpl;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import miosm.user_service.cache.UserProfileCache;
 import miosm.user_service.dto.CreateUserRequestDto;
+import miosm.user_service.dto.CursorPageDto;
 import miosm.user_service.dto.UpdateUserRequestDto;
+import miosm.user_service.dto.UserCardDto;
+import miosm.user_service.dto.UserBatchResponseDto;
 import miosm.user_service.dto.UserResponseDto;
+import miosm.user_service.entity.ImageKind;
 import miosm.user_service.entity.User;
+import miosm.user_service.follow.FollowGraphStore;
 import miosm.user_service.mapper.CreateUserRequestMapper;
 import miosm.user_service.mapper.UpdateUserRequestMapper;
+import miosm.user_service.mapper.UserCardMapper;
 import miosm.user_service.mapper.UserResponseMapper;
 import miosm.user_service.repository.UserRepository;
-import miosm.user_service.repository.SubscriptionRepository;
-import miosm.user_service.entity.Subscription;
+import miosm.user_service.repository.projection.FollowCardView;
+import miosm.user_service.repository.projection.UserCardView;
+import miosm.user_service.search.SearchHit;
+import miosm.user_service.search.UserSearchIndex;
+import miosm.user_service.service.ImageRenditionService;
 import miosm.user_service.service.MinioService;
+import miosm.user_service.service.OrphanImageCollector;
+import miosm.user_service.service.UserNotFoundException;
 import miosm.user_service.service.UserService;
+import miosm.user_service.util.SearchCursor;
+import miosm.user_service.util.SubscriptionCursor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
+@Timed(value = "users.service", description = "UserService calls by method")
 public class UserServiceImpl implements UserService {
 
+    private static final int COUNTER_BATCH_SIZE = 1000;
+
     private final UserRepository userRepository;
-    private final SubscriptionRepository subscriptionRepository;
+    private final FollowGraphStore followGraphStore;
     private final CreateUserRequestMapper createUserRequestMapper;
     private final UpdateUserRequestMapper updateUserRequestMapper;
     private final UserResponseMapper userResponseMapper;
+    private final UserCardMapper userCardMapper;
     private final MinioService minioService;
+    private final ImageRenditionService imageRenditionService;
+    private final OrphanImageCollector orphanImageCollector;
+    private final UserProfileCache profileCache;
+    private final UserSearchIndex searchIndex;
+
+    @Value("${app.search.max-results:50}")
+    private int maxSearchResults;
+
+    @Value("${app.users.max-batch-size:100}")
+    private int maxUserBatch;
+
+    @Value("${app.follows.max-page-size:100}")
+    private int maxFollowsPageSize;
+
+    @Value("${app.follows.max-status-batch:200}")
+    private int maxFollowStatusBatch;
 
     @Override
     public UserResponseDto findUserByUsername(String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new IllegalArgumentException("User not found: " + username));
-        return userResponseMapper.toDto(user);
+        return profileCache.getByUsername(username, () -> userRepository.findByUsername(username)
+                .map(userResponseMapper::toDto)
+                .orElseThrow(() -> new IllegalArgumentException("User not found: " + username)));
     }
 
     @Override
     public UserResponseDto findUserById(UUID id) {
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("User not found: " + id));
-        return userResponseMapper.toDto(user);
+        return profileCache.getById(id, () -> userRepository.findById(id)
+                .map(userResponseMapper::toDto)
+                .orElseThrow(() -> new IllegalArgumentException("User not found: " + id)));
+    }
+
+    @Override
+    public UserBatchResponseDto findUsers(List<UUID> ids, List<String> usernames) {
+        Set<UUID> idKeys = new LinkedHashSet<>(ids == null ? List.of() : ids);
+        idKeys.remove(null);
+        // Usernames are unique case-insensitively, so collapse on the lowercase form
+        Map<String, String> usernameKeys = new LinkedHashMap<>();
+        if (usernames != null) {
+            for (String username : usernames) {
+                if (username != null && !username.isBlank()) {
+                    usernameKeys.putIfAbsent(username.toLowerCase(Locale.ROOT), username);
+                }
+            }
+        }
+        if (idKeys.size() + usernameKeys.size() > maxUserBatch) {
+            throw new IllegalArgumentException("At most " + maxUserBatch + " users can be resolved at once");
+        }
+
+        long loadedAt = profileCache.generation();
+        Map<UUID, UserResponseDto> byId = new LinkedHashMap<>();
+        List<UUID> missingIds = new ArrayList<>();
+        for (UUID id : idKeys) {
+            UserResponseDto cached = profileCache.getById(id);
+            if (cached != null) {
+                byId.put(id, cached);
+            } else {
+                missingIds.add(id);
+            }
+        }
+
+        Map<String, UserResponseDto> byUsername = new LinkedHashMap<>();
+        List<String> missingUsernames = new ArrayList<>();
+        for (String username : usernameKeys.values()) {
+            UserResponseDto cached = profileCache.getByUsername(username);
+            if (cached != null) {
+                byUsername.put(username, cached);
+            } else {
+                missingUsernames.add(username);
+            }
+        }
+
+        if (!missingIds.isEmpty()) {
+            for (User user : userRepository.findAllById(missingIds)) {
+                UserResponseDto dto = userResponseMapper.toDto(user);
+                profileCache.put(dto, loadedAt);
+                byId.put(user.getId(), dto);
+            }
+        }
+        if (!missingUsernames.isEmpty()) {
+            Map<String, String> requested = missingUsernames.stream()
+                    .collect(Collectors.toMap(u -> u.toLowerCase(Locale.ROOT), Function.identity()));
+            for (User user : userRepository.findAllByUsernameIn(missingUsernames)) {
+                UserResponseDto dto = userResponseMapper.toDto(user);
+                profileCache.put(dto, loadedAt);
+                byUsername.put(requested.getOrDefault(user.getUsername().toLowerCase(Locale.ROOT), user.getUsername()), dto);
+            }
+        }
+        return new UserBatchResponseDto(byId, byUsername);
     }
 
     @Override
@@ -60,6 +167,7 @@ public class UserServiceImpl implements UserService {
         
         user.setId(dto.getId());
         User savedUser = userRepository.save(user);
+        searchIndex.index(savedUser.getId(), savedUser.getUsername(), savedUser.getBio());
         return userResponseMapper.toDto(savedUser);
     }
 
@@ -67,68 +175,121 @@ public class UserServiceImpl implements UserService {
     public UserResponseDto updateUser(UUID id, UpdateUserRequestDto dto) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        String previousUsername = user.getUsername();
 
         user.setUsername(dto.getUsername());
         user.setBio(dto.getBio());
 
         User updatedUser = userRepository.save(user);
+        profileCache.evict(id, previousUsername);
+        searchIndex.index(id, updatedUser.getUsername(), updatedUser.getBio());
         return userResponseMapper.toDto(updatedUser);
     }
 
     @Override
     public UserResponseDto uploadAvatar(UUID id, MultipartFile file) {
+        Path spool = null;
         try {
-            log.info("Starting avatar upload for user: {}", id);
+            log.trace("Starting avatar upload for user: {}", id);
             
             if (file == null || file.isEmpty()) {
-                log.warn("Avatar file is null or empty for user: {}", id);
+                log.debug("Avatar file is null or empty for user: {}", id);
                 throw new IllegalArgumentException("Avatar file is required");
             }
             
-            log.info("Found avatar file: {} (size: {} bytes)", file.getOriginalFilename(), file.getSize());
+            log.trace("Found avatar file: {} (size: {} bytes)", file.getOriginalFilename(), file.getSize());
             
             User user = userRepository.findById(id)
                     .orElseThrow(() -> {
-                        log.error("User not found: {}", id);
+                        log.debug("User not found: {}", id);
                         return new IllegalArgumentException("User not found: " + id);
                     });
             
+            spool = imageRenditionService.spool(file.getInputStream());
             String avatarUrl = minioService.uploadImage(file, "avatars");
-            log.info("Avatar uploaded to MinIO successfully: {}", avatarUrl);
+            log.debug("Avatar uploaded to MinIO successfully: {}", avatarUrl);
             
+            String previousUrl = user.getAvatarUrl();
             user.setAvatarUrl(avatarUrl);
+            user.setAvatarRenditionsReady(false);
             User updatedUser = userRepository.save(user);
+            profileCache.evict(id, user.getUsername());
+            orphanImageCollector.record(previousUrl);
+            imageRenditionService.generateLater(id, ImageKind.AVATAR, avatarUrl, spool);
+            spool = null;
             
-            log.info("Avatar updated successfully for user: {}", id);
+            log.debug("Avatar updated successfully for user: {}", id);
             return userResponseMapper.toDto(updatedUser);
         } catch (Exception e) {
             log.error("Failed to upload avatar for user {}: {}", id, e.getMessage(), e);
             throw new RuntimeException("Failed to upload avatar: " + e.getMessage(), e);
+        } finally {
+            imageRenditionService.discard(spool);
+        }
+    }
+
+    @Override
+    public UserResponseDto uploadAvatar(UUID id, InputStream content, long size, String contentType) {
+        try {
+            log.trace("Starting streamed avatar upload for user: {} (declared size: {} bytes)", id, size);
+            
+            User user = userRepository.findById(id)
+                    .orElseThrow(() -> new UserNotFoundException(id));
+            
+            // Renditions are read back from MinIO so the body never has to be copied to local disk
+            String avatarUrl = minioService.uploadImage(content, size, contentType, "avatars");
+            log.debug("Avatar streamed to MinIO successfully: {}", avatarUrl);
+            
+            String previousUrl = user.getAvatarUrl();
+            user.setAvatarUrl(avatarUrl);
+            user.setAvatarRenditionsReady(false);
+            User updatedUser = userRepository.save(user);
+            profileCache.evict(id, user.getUsername());
+            orphanImageCollector.record(previousUrl);
+            imageRenditionService.generateLater(id, ImageKind.AVATAR, avatarUrl, null);
+            
+            return userResponseMapper.toDto(updatedUser);
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Failed to stream avatar for user {}: {}", id, e.getMessage(), e);
+            throw new RuntimeException("Failed to upload avatar: " + e.getMessage(), e);
+        }
+    }
+
+    private void deleteImage(String imageUrl) {
+        try {
+            minioService.deleteImage(imageUrl);
+        } catch (Exception e) {
+            // Hand it to the collector so a storage hiccup does not block the profile change
+            log.warn("Failed to delete {}, scheduling for collection: {}", imageUrl, e.getMessage());
+            orphanImageCollector.record(imageUrl);
         }
     }
 
     @Override
     public UserResponseDto deleteAvatar(UUID id) {
         try {
-            log.info("Starting avatar deletion for user: {}", id);
+            log.trace("Starting avatar deletion for user: {}", id);
             
             User user = userRepository.findById(id)
                     .orElseThrow(() -> {
-                        log.error("User not found: {}", id);
+                        log.debug("User not found: {}", id);
                         return new IllegalArgumentException("User not found: " + id);
                     });
             
             if (user.getAvatarUrl() != null) {
-                log.info("Deleting avatar from MinIO: {}", user.getAvatarUrl());
-                minioService.deleteImage(user.getAvatarUrl());
-                log.info("Avatar deleted from MinIO successfully");
+                log.trace("Deleting avatar from MinIO: {}", user.getAvatarUrl());
+                deleteImage(user.getAvatarUrl());
                 user.setAvatarUrl(null);
+                user.setAvatarRenditionsReady(false);
             } else {
-                log.info("User {} has no avatar to delete", id);
+                log.debug("User {} has no avatar to delete", id);
             }
             
             User updatedUser = userRepository.save(user);
-            log.info("Avatar deletion completed for user: {}", id);
+            profileCache.evict(id, user.getUsername());
+            log.debug("Avatar deletion completed for user: {}", id);
             return userResponseMapper.toDto(updatedUser);
         } catch (Exception e) {
             log.error("Failed to delete avatar for user {}: {}", id, e.getMessage(), e);
@@ -138,58 +299,98 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public UserResponseDto uploadCoverImage(UUID id, MultipartFile file) {
+        Path spool = null;
         try {
-            log.info("Starting cover image upload for user: {}", id);
+            log.trace("Starting cover image upload for user: {}", id);
             
             if (file == null || file.isEmpty()) {
-                log.warn("Cover image file is null or empty for user: {}", id);
+                log.debug("Cover image file is null or empty for user: {}", id);
                 throw new IllegalArgumentException("Cover image file is required");
             }
             
-            log.info("Found cover image file: {} (size: {} bytes)", file.getOriginalFilename(), file.getSize());
+            log.trace("Found cover image file: {} (size: {} bytes)", file.getOriginalFilename(), file.getSize());
             
             User user = userRepository.findById(id)
                     .orElseThrow(() -> {
-                        log.error("User not found: {}", id);
+                        log.debug("User not found: {}", id);
                         return new IllegalArgumentException("User not found: " + id);
                     });
             
+            spool = imageRenditionService.spool(file.getInputStream());
             String coverImageUrl = minioService.uploadImage(file, "covers");
-            log.info("Cover image uploaded to MinIO successfully: {}", coverImageUrl);
+            log.debug("Cover image uploaded to MinIO successfully: {}", coverImageUrl);
             
+            String previousUrl = user.getCoverImageUrl();
             user.setCoverImageUrl(coverImageUrl);
+            user.setCoverImageRenditionsReady(false);
             User updatedUser = userRepository.save(user);
+            profileCache.evict(id, user.getUsername());
+            orphanImageCollector.record(previousUrl);
+            imageRenditionService.generateLater(id, ImageKind.COVER, coverImageUrl, spool);
+            spool = null;
             
-            log.info("Cover image updated successfully for user: {}", id);
+            log.debug("Cover image updated successfully for user: {}", id);
             return userResponseMapper.toDto(updatedUser);
         } catch (Exception e) {
             log.error("Failed to upload cover image for user {}: {}", id, e.getMessage(), e);
             throw new RuntimeException("Failed to upload cover image: " + e.getMessage(), e);
+        } finally {
+            imageRenditionService.discard(spool);
+        }
+    }
+
+    @Override
+    public UserResponseDto uploadCoverImage(UUID id, InputStream content, long size, String contentType) {
+        try {
+            log.trace("Starting streamed cover image upload for user: {} (declared size: {} bytes)", id, size);
+            
+            User user = userRepository.findById(id)
+                    .orElseThrow(() -> new UserNotFoundException(id));
+            
+            // Renditions are read back from MinIO so the body never has to be copied to local disk
+            String coverImageUrl = minioService.uploadImage(content, size, contentType, "covers");
+            log.debug("Cover image streamed to MinIO successfully: {}", coverImageUrl);
+            
+            String previousUrl = user.getCoverImageUrl();
+            user.setCoverImageUrl(coverImageUrl);
+            user.setCoverImageRenditionsReady(false);
+            User updatedUser = userRepository.save(user);
+            profileCache.evict(id, user.getUsername());
+            orphanImageCollector.record(previousUrl);
+            imageRenditionService.generateLater(id, ImageKind.COVER, coverImageUrl, null);
+            
+            return userResponseMapper.toDto(updatedUser);
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Failed to stream cover image for user {}: {}", id, e.getMessage(), e);
+            throw new RuntimeException("Failed to upload cover image: " + e.getMessage(), e);
         }
     }
 
     @Override
     public UserResponseDto deleteCoverImage(UUID id) {
         try {
-            log.info("Starting cover image deletion for user: {}", id);
+            log.trace("Starting cover image deletion for user: {}", id);
             
             User user = userRepository.findById(id)
                     .orElseThrow(() -> {
-                        log.error("User not found: {}", id);
+                        log.debug("User not found: {}", id);
                         return new IllegalArgumentException("User not found: " + id);
                     });
             
             if (user.getCoverImageUrl() != null) {
-                log.info("Deleting cover image from MinIO: {}", user.getCoverImageUrl());
-                minioService.deleteImage(user.getCoverImageUrl());
-                log.info("Cover image deleted from MinIO successfully");
+                log.trace("Deleting cover image from MinIO: {}", user.getCoverImageUrl());
+                deleteImage(user.getCoverImageUrl());
                 user.setCoverImageUrl(null);
+                user.setCoverImageRenditionsReady(false);
             } else {
-                log.info("User {} has no cover image to delete", id);
+                log.debug("User {} has no cover image to delete", id);
             }
             
             User updatedUser = userRepository.save(user);
-            log.info("Cover image deletion completed for user: {}", id);
+            profileCache.evict(id, user.getUsername());
+            log.debug("Cover image deletion completed for user: {}", id);
             return userResponseMapper.toDto(updatedUser);
         } catch (Exception e) {
             log.error("Failed to delete cover image for user {}: {}", id, e.getMessage(), e);
@@ -198,62 +399,123 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional
     public void deleteUser(UUID id) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("User not found: " + id));
+        // The peers lose one follower or followed user each, in the same transaction as the delete
+        decrementInBatches(followGraphStore.findFollowerIds(id), userRepository::decrementFollowingCounts);
+        decrementInBatches(followGraphStore.findFollowingIds(id), userRepository::decrementFollowersCounts);
+        followGraphStore.removeUser(id);
         userRepository.delete(user);
+        profileCache.evict(id, user.getUsername());
+        searchIndex.remove(id);
+        orphanImageCollector.record(user.getAvatarUrl());
+        orphanImageCollector.record(user.getCoverImageUrl());
+    }
+
+    // Keeps each UPDATE's IN list bounded for users with many followers
+    private static void decrementInBatches(Set<UUID> ids, Consumer<List<UUID>> decrement) {
+        List<UUID> batch = new ArrayList<>(COUNTER_BATCH_SIZE);
+        for (UUID id : ids) {
+            batch.add(id);
+            if (batch.size() == COUNTER_BATCH_SIZE) {
+                decrement.accept(batch);
+                batch = new ArrayList<>(COUNTER_BATCH_SIZE);
+            }
+        }
+        if (!batch.isEmpty()) {
+            decrement.accept(batch);
+        }
     }
 
     @Override
-    public List<UserResponseDto> searchUsers(String query) {
+    public CursorPageDto<UserCardDto> searchUsers(String query, String cursor, int limit) {
         try {
-            log.info("Searching users with query: {}", query);
+            log.trace("Searching users with query: {}", query);
             
             if (query == null || query.trim().isEmpty()) {
-                log.warn("Empty search query provided");
-                return List.of();
+                log.debug("Empty search query provided");
+                return new CursorPageDto<>(List.of(), null);
+            }
+            if (limit < 1) {
+                throw new IllegalArgumentException("Limit must be positive");
             }
             
             String trimmedQuery = query.trim();
-            List<User> users = userRepository.searchUsersRanked(trimmedQuery);
-            
-            log.info("Found {} users matching query: {}", users.size(), trimmedQuery);
-            
-            return users.stream()
-                    .map(userResponseMapper::toDto)
-                    .collect(Collectors.toList());
+            int pageSize = Math.min(limit, maxSearchResults);
+            CursorPageDto<UserCardDto> page = searchIndex.isReady()
+                    ? searchIndexed(trimmedQuery, cursor, pageSize)
+                    : searchDatabase(trimmedQuery, cursor, pageSize);
+            
+            log.debug("Search returned {} users", page.getItems().size());
+            return page;
+        } catch (IllegalArgumentException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error searching users with query '{}': {}", query, e.getMessage(), e);
             throw new RuntimeException("Failed to search users: " + e.getMessage(), e);
         }
     }
 
+    private CursorPageDto<UserCardDto> searchIndexed(String query, String cursor, int limit) {
+        SearchHit after = cursor == null || cursor.isBlank() ? null : SearchCursor.decode(cursor);
+        List<SearchHit> hits = searchIndex.search(query, after, limit + 1);
+
+        boolean hasMore = hits.size() > limit;
+        List<SearchHit> pageHits = hasMore ? hits.subList(0, limit) : hits;
+
+        List<UUID> rankedIds = pageHits.stream().map(SearchHit::id).collect(Collectors.toList());
+        Map<UUID, UserCardView> cardsById = rankedIds.isEmpty()
+                ? Map.of()
+                : userRepository.findCardsByIdIn(rankedIds).stream()
+                        .collect(Collectors.toMap(UserCardView::getId, Function.identity()));
+        List<UserCardDto> items = rankedIds.stream()
+                .map(cardsById::get)
+                .filter(Objects::nonNull)
+                .map(userCardMapper::toDto)
+                .collect(Collectors.toList());
+
+        String nextCursor = hasMore ? SearchCursor.encode(pageHits.get(pageHits.size() - 1)) : null;
+        return new CursorPageDto<>(items, nextCursor);
+    }
+
+    // Only used until the index has been built, so it serves the first page and never hands out a cursor
+    private CursorPageDto<UserCardDto> searchDatabase(String query, String cursor, int limit) {
+        if (cursor != null && !cursor.isBlank()) {
+            return new CursorPageDto<>(List.of(), null);
+        }
+        List<UserCardDto> items = userRepository.searchCardsRanked(query, PageRequest.of(0, limit)).stream()
+                .map(userCardMapper::toDto)
+                .collect(Collectors.toList());
+        return new CursorPageDto<>(items, null);
+    }
+
     @Override
+    @Transactional
     public void followUser(UUID followerId, UUID followingId) {
         try {
-            log.info("User {} attempting to follow user {}", followerId, followingId);
+            log.trace("User {} attempting to follow user {}", followerId, followingId);
             
             if (followerId.equals(followingId)) {
                 throw new IllegalArgumentException("User cannot follow themselves");
             }
             
-            User follower = userRepository.findById(followerId)
-                    .orElseThrow(() -> new IllegalArgumentException("Follower not found: " + followerId));
-            
-            User following = userRepository.findById(followingId)
-                    .orElseThrow(() -> new IllegalArgumentException("User to follow not found: " + followingId));
-            
-            if (subscriptionRepository.existsByFollowerAndFollowing(follower, following)) {
-                log.warn("User {} is already following user {}", followerId, followingId);
+            if (!followGraphStore.follow(followerId, followingId)) {
+                // A refused follow is either a duplicate or a missing user; tell them apart for the caller
+                if (!userRepository.existsById(followerId)) {
+                    throw new IllegalArgumentException("Follower not found: " + followerId);
+                }
+                if (!userRepository.existsById(followingId)) {
+                    throw new IllegalArgumentException("User to follow not found: " + followingId);
+                }
+                log.debug("User {} is already following user {}", followerId, followingId);
                 return;
             }
             
-            Subscription subscription = new Subscription();
-            subscription.setFollower(follower);
-            subscription.setFollowing(following);
-            
-            subscriptionRepository.save(subscription);
-            log.info("User {} successfully followed user {}", followerId, followingId);
+            userRepository.adjustFollowingCount(followerId, 1);
+            userRepository.adjustFollowersCount(followingId, 1);
+            log.debug("User {} successfully followed user {}", followerId, followingId);
         } catch (Exception e) {
             log.error("Failed to follow user {}: {}", followingId, e.getMessage(), e);
             throw new RuntimeException("Failed to follow user: " + e.getMessage(), e);
@@ -261,23 +523,17 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional
     public void unfollowUser(UUID followerId, UUID followingId) {
         try {
-            log.info("User {} attempting to unfollow user {}", followerId, followingId);
-            
-            User follower = userRepository.findById(followerId)
-                    .orElseThrow(() -> new IllegalArgumentException("Follower not found: " + followerId));
+            log.trace("User {} attempting to unfollow user {}", followerId, followingId);
             
-            User following = userRepository.findById(followingId)
-                    .orElseThrow(() -> new IllegalArgumentException("User to unfollow not found: " + followingId));
-            
-            Optional<Subscription> subscription = subscriptionRepository.findByFollowerAndFollowing(follower, following);
-            
-            if (subscription.isPresent()) {
-                subscriptionRepository.delete(subscription.get());
-                log.info("User {} successfully unfollowed user {}", followerId, followingId);
+            if (followGraphStore.unfollow(followerId, followingId)) {
+                userRepository.adjustFollowingCount(followerId, -1);
+                userRepository.adjustFollowersCount(followingId, -1);
+                log.debug("User {} successfully unfollowed user {}", followerId, followingId);
             } else {
-                log.warn("User {} was not following user {}", followerId, followingId);
+                log.debug("User {} was not following user {}", followerId, followingId);
             }
         } catch (Exception e) {
             log.error("Failed to unfollow user {}: {}", followingId, e.getMessage(), e);
@@ -288,13 +544,7 @@ public class UserServiceImpl implements UserService {
     @Override
     public boolean isFollowing(UUID followerId, UUID followingId) {
         try {
-            User follower = userRepository.findById(followerId)
-                    .orElseThrow(() -> new IllegalArgumentException("Follower not found: " + followerId));
-            
-            User following = userRepository.findById(followingId)
-                    .orElseThrow(() -> new IllegalArgumentException("User not found: " + followingId));
-            
-            return subscriptionRepository.existsByFollowerAndFollowing(follower, following);
+            return followGraphStore.isFollowing(followerId, followingId);
         } catch (Exception e) {
             log.error("Failed to check if user {} is following user {}: {}", followerId, followingId, e.getMessage(), e);
             return false;
@@ -302,15 +552,36 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    public List<UserResponseDto> getFollowers(UUID userId) {
+    public Map<UUID, Boolean> getFollowingStatus(UUID followerId, List<UUID> followingIds) {
+        if (followingIds == null || followingIds.isEmpty()) {
+            return Map.of();
+        }
+        Set<UUID> targets = new LinkedHashSet<>(followingIds);
+        targets.remove(null);
+        if (targets.size() > maxFollowStatusBatch) {
+            throw new IllegalArgumentException("At most " + maxFollowStatusBatch + " ids can be checked at once");
+        }
+
+        Set<UUID> followed = targets.isEmpty()
+                ? Set.of()
+                : followGraphStore.findFollowed(followerId, targets);
+
+        Map<UUID, Boolean> status = new LinkedHashMap<>();
+        targets.forEach(id -> status.put(id, followed.contains(id)));
+        return status;
+    }
+
+    @Override
+    public CursorPageDto<UserCardDto> getFollowers(UUID userId, String cursor, int limit) {
         try {
-            log.info("Getting followers for user: {}", userId);
+            log.trace("Getting followers for user: {}", userId);
             
-            List<User> followers = subscriptionRepository.findFollowersByUserId(userId);
+            int pageSize = followsPageSize(limit);
+            List<FollowCardView> rows = followGraphStore.findFollowers(userId, decodeFollowsCursor(cursor), pageSize + 1);
             
-            return followers.stream()
-                    .map(userResponseMapper::toDto)
-                    .collect(Collectors.toList());
+            return toFollowsPage(rows, pageSize);
+        } catch (IllegalArgumentException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Failed to get followers for user {}: {}", userId, e.getMessage(), e);
             throw new RuntimeException("Failed to get followers: " + e.getMessage(), e);
@@ -318,25 +589,54 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    public List<UserResponseDto> getFollowing(UUID userId) {
+    public CursorPageDto<UserCardDto> getFollowing(UUID userId, String cursor, int limit) {
         try {
-            log.info("Getting following list for user: {}", userId);
+            log.trace("Getting following list for user: {}", userId);
             
-            List<User> following = subscriptionRepository.findFollowingByUserId(userId);
+            int pageSize = followsPageSize(limit);
+            List<FollowCardView> rows = followGraphStore.findFollowing(userId, decodeFollowsCursor(cursor), pageSize + 1);
             
-            return following.stream()
-                    .map(userResponseMapper::toDto)
-                    .collect(Collectors.toList());
+            return toFollowsPage(rows, pageSize);
+        } catch (IllegalArgumentException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Failed to get following list for user {}: {}", userId, e.getMessage(), e);
             throw new RuntimeException("Failed to get following list: " + e.getMessage(), e);
         }
     }
 
+    // Callers fetch one extra row, which tells us whether another page exists without a COUNT query
+    private int followsPageSize(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        return Math.min(limit, maxFollowsPageSize);
+    }
+
+    private static SubscriptionCursor decodeFollowsCursor(String cursor) {
+        return cursor == null || cursor.isBlank() ? null : SubscriptionCursor.decode(cursor);
+    }
+
+    private CursorPageDto<UserCardDto> toFollowsPage(List<FollowCardView> rows, int limit) {
+        boolean hasMore = rows.size() > limit;
+        List<FollowCardView> pageRows = hasMore ? rows.subList(0, limit) : rows;
+
+        List<UserCardDto> items = pageRows.stream()
+                .map(userCardMapper::toDto)
+                .collect(Collectors.toList());
+
+        String nextCursor = null;
+        if (hasMore) {
+            FollowCardView last = pageRows.get(pageRows.size() - 1);
+            nextCursor = new SubscriptionCursor(last.getFollowedAt(), last.getSubscriptionId()).encode();
+        }
+        return new CursorPageDto<>(items, nextCursor);
+    }
+
     @Override
     public Long getFollowersCount(UUID userId) {
         try {
-            return subscriptionRepository.countFollowersByUserId(userId);
+            return userRepository.findFollowersCountById(userId).orElse(0L);
         } catch (Exception e) {
             log.error("Failed to get followers count for user {}: {}", userId, e.getMessage(), e);
             return 0L;
@@ -346,7 +646,7 @@ public class UserServiceImpl implements UserService {
     @Override
     public Long getFollowingCount(UUID userId) {
         try {
-            return subscriptionRepository.countFollowingByUserId(userId);
+            return userRepository.findFollowingCountById(userId).orElse(0L);
         } catch (Exception e) {
             log.error("Failed to get following count for user {}: {}", userId, e.getMessage(), e);
             return 0L;
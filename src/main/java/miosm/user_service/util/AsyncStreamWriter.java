@@ -0,0 +1,90 @@
+package miosm.user_service.util;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Slf4j
+public class AsyncStreamWriter implements WriteListener, AsyncListener {
+
+    private final AsyncContext asyncContext;
+    private final ServletOutputStream out;
+    private final InputStream in;
+    private final byte[] buffer;
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    private AsyncStreamWriter(AsyncContext asyncContext, ServletOutputStream out, InputStream in, int bufferSize) {
+        this.asyncContext = asyncContext;
+        this.out = out;
+        this.in = in;
+        this.buffer = new byte[bufferSize];
+    }
+
+    public static void start(AsyncContext asyncContext, InputStream in, int bufferSize) throws IOException {
+        ServletOutputStream out = asyncContext.getResponse().getOutputStream();
+        AsyncStreamWriter writer = new AsyncStreamWriter(asyncContext, out, in, bufferSize);
+        asyncContext.addListener(writer);
+        out.setWriteListener(writer);
+    }
+
+    @Override
+    public void onWritePossible() throws IOException {
+        // Only called while the socket can take more data, so a slow reader parks the connection, not a thread
+        while (out.isReady()) {
+            int read = in.read(buffer);
+            if (read < 0) {
+                finish();
+                return;
+            }
+            out.write(buffer, 0, read);
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        log.debug("Async image write aborted: {}", t.getMessage());
+        finish();
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+        log.debug("Async image write timed out");
+        finish();
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+        finish();
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+        closeInput();
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+    }
+
+    private void finish() {
+        if (finished.compareAndSet(false, true)) {
+            closeInput();
+            asyncContext.complete();
+        }
+    }
+
+    private void closeInput() {
+        try {
+            in.close();
+        } catch (IOException e) {
+            log.debug("Could not close image source: {}", e.getMessage());
+        }
+    }
+}
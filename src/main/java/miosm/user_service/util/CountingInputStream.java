@@ -0,0 +1,61 @@
+package miosm.user_service.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.LongConsumer;
+
+// Reports how many bytes were read once the stream is closed
+public class CountingInputStream extends FilterInputStream {
+
+    private final LongConsumer onClose;
+    private long count;
+    private boolean closed;
+
+    public CountingInputStream(InputStream in, LongConsumer onClose) {
+        super(in);
+        this.onClose = onClose;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            count++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            count += n;
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        count += skipped;
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            if (!closed) {
+                closed = true;
+                onClose.accept(count);
+            }
+        }
+    }
+}
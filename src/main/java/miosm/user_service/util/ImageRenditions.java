@@ -0,0 +1,71 @@
+package miosm.user_service.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class ImageRenditions {
+
+    public static final String AVATARS = "avatars";
+    public static final String COVERS = "covers";
+
+    public static final int[] AVATAR_SIZES = {64, 128, 512};
+    public static final int[] COVER_WIDTHS = {1500};
+
+    public static final String FORMAT = "jpg";
+    public static final String CONTENT_TYPE = "image/jpeg";
+
+    private ImageRenditions() {
+    }
+
+    public static int[] sizesFor(String objectKey) {
+        if (objectKey.startsWith(AVATARS + "/")) {
+            return AVATAR_SIZES;
+        }
+        if (objectKey.startsWith(COVERS + "/")) {
+            return COVER_WIDTHS;
+        }
+        return new int[0];
+    }
+
+    // avatars/<uuid>.png -> avatars/<uuid>_128.jpg
+    public static String renditionKey(String objectKey, int size) {
+        int slash = objectKey.lastIndexOf('/');
+        int dot = objectKey.lastIndexOf('.');
+        String base = dot > slash ? objectKey.substring(0, dot) : objectKey;
+        return base + "_" + size + "." + FORMAT;
+    }
+
+    public static List<String> renditionKeys(String objectKey) {
+        List<String> keys = new ArrayList<>();
+        for (int size : sizesFor(objectKey)) {
+            keys.add(renditionKey(objectKey, size));
+        }
+        return keys;
+    }
+
+    // Until the renditions exist clients get no rendition URLs and fall back to the original
+    public static Map<String, String> avatarUrls(String avatarUrl, boolean ready) {
+        return urls(avatarUrl, ready, AVATAR_SIZES);
+    }
+
+    public static Map<String, String> coverUrls(String coverImageUrl, boolean ready) {
+        return urls(coverImageUrl, ready, COVER_WIDTHS);
+    }
+
+    public static String avatarThumbnailUrl(String avatarUrl, boolean ready) {
+        return avatarUrl == null || !ready ? null : renditionKey(avatarUrl, AVATAR_SIZES[0]);
+    }
+
+    private static Map<String, String> urls(String originalUrl, boolean ready, int[] sizes) {
+        if (originalUrl == null || !ready) {
+            return null;
+        }
+        Map<String, String> urls = new LinkedHashMap<>();
+        for (int size : sizes) {
+            urls.put(String.valueOf(size), renditionKey(originalUrl, size));
+        }
+        return urls;
+    }
+}
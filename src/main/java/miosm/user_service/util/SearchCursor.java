@@ -0,0 +1,33 @@
+package miosm.user_service.util;
+
+import miosm.user_service.search.SearchHit;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+public final class SearchCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private SearchCursor() {
+    }
+
+    public static String encode(SearchHit hit) {
+        String raw = hit.rank() + SEPARATOR + hit.id() + SEPARATOR + hit.username();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SearchHit decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new SearchHit(Integer.parseInt(parts[0]), parts[2], UUID.fromString(parts[1]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package miosm.user_service.util;
+
+import miosm.user_service.entity.ImageKind;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+// Binds a presigned object key to its user and declared type/size; the token is the ticket plus its HMAC
+public record UploadTicket(UUID userId, ImageKind kind, String objectKey, String contentType, long size, Instant expiresAt) {
+
+    private static final String HMAC = "HmacSHA256";
+    private static final String SEPARATOR = "|";
+
+    public String sign(String secret) {
+        String raw = String.join(SEPARATOR, userId.toString(), kind.name(), objectKey, contentType,
+                String.valueOf(size), String.valueOf(expiresAt.getEpochSecond()));
+        return encode(raw.getBytes(StandardCharsets.UTF_8)) + "." + encode(mac(secret, raw));
+    }
+
+    public static UploadTicket verify(String token, String secret) {
+        try {
+            String[] parts = token.split("\\.");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid upload token");
+            }
+            String raw = new String(Base64.getUrlDecoder().decode(parts[0]), StandardCharsets.UTF_8);
+            if (!MessageDigest.isEqual(Base64.getUrlDecoder().decode(parts[1]), mac(secret, raw))) {
+                throw new IllegalArgumentException("Invalid upload token");
+            }
+            String[] fields = raw.split("\\|");
+            if (fields.length != 6) {
+                throw new IllegalArgumentException("Invalid upload token");
+            }
+            return new UploadTicket(UUID.fromString(fields[0]), ImageKind.valueOf(fields[1]), fields[2], fields[3],
+                    Long.parseLong(fields[4]), Instant.ofEpochSecond(Long.parseLong(fields[5])));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IllegalArgumentException("Invalid upload token", e);
+        }
+    }
+
+    private static byte[] mac(String secret, String raw) {
+        try {
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC));
+            return mac.doFinal(raw.getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not sign upload token", e);
+        }
+    }
+
+    private static String encode(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
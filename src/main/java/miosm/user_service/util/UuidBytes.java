@@ -0,0 +1,23 @@
+package miosm.user_service.util;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+// Same BINARY(16) layout Hibernate uses for the UUID columns in the main schema
+public final class UuidBytes {
+
+    private UuidBytes() {
+    }
+
+    public static byte[] toBytes(UUID id) {
+        return ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+    }
+
+    public static UUID fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
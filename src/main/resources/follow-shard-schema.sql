@@ -0,0 +1,19 @@
+-- Every shard holds both directions. An edge is written to follow_forward on the follower's shard
+-- (owner = follower) and to follow_reverse on the followed user's shard (owner = followed user).
+CREATE TABLE IF NOT EXISTS follow_forward (
+    owner_id   BINARY(16)  NOT NULL,
+    peer_id    BINARY(16)  NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    edge_id    BINARY(16)  NOT NULL,
+    PRIMARY KEY (owner_id, peer_id),
+    KEY idx_follow_forward_page (owner_id, created_at, edge_id)
+);
+
+CREATE TABLE IF NOT EXISTS follow_reverse (
+    owner_id   BINARY(16)  NOT NULL,
+    peer_id    BINARY(16)  NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    edge_id    BINARY(16)  NOT NULL,
+    PRIMARY KEY (owner_id, peer_id),
+    KEY idx_follow_reverse_page (owner_id, created_at, edge_id)
+);
@@ -0,0 +1,165 @@
+package miosm.user_service.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import miosm.user_service.dto.UserResponseDto;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UserProfileCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UserProfileCache cache = new UserProfileCache(meterRegistry, 1000, Duration.ofMinutes(10));
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        UUID id = UUID.randomUUID();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Supplier<UserResponseDto> loader = () -> {
+            loads.incrementAndGet();
+            sleep(50);
+            return user(id, "alice");
+        };
+
+        List<Future<UserResponseDto>> results = new ArrayList<>();
+        try (ExecutorService callers = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 8; i++) {
+                results.add(callers.submit(() -> {
+                    start.await();
+                    return cache.getById(id, loader);
+                }));
+            }
+            start.countDown();
+            for (Future<UserResponseDto> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS).getUsername()).isEqualTo("alice");
+            }
+        }
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void countsCallersThatJoinALoadInFlight() throws Exception {
+        UUID id = UUID.randomUUID();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<UserResponseDto> loader = () -> {
+            loading.countDown();
+            await(release);
+            return user(id, "alice");
+        };
+
+        try (ExecutorService callers = Executors.newFixedThreadPool(2)) {
+            Future<UserResponseDto> first = callers.submit(() -> cache.getById(id, loader));
+            loading.await(5, TimeUnit.SECONDS);
+            Future<UserResponseDto> second = callers.submit(() -> cache.getById(id, () -> {
+                throw new AssertionError("joined caller must not load");
+            }));
+            while (coalesced("id") < 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS).getUsername()).isEqualTo("alice");
+            assertThat(second.get(5, TimeUnit.SECONDS).getUsername()).isEqualTo("alice");
+        }
+        assertThat(coalesced("id")).isEqualTo(1);
+    }
+
+    @Test
+    void loaderExceptionsReachEveryCallerAndAreNotCached() {
+        UUID id = UUID.randomUUID();
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<UserResponseDto> failing = () -> {
+            loads.incrementAndGet();
+            throw new IllegalArgumentException("User not found: " + id);
+        };
+
+        assertThatThrownBy(() -> cache.getById(id, failing))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("User not found: " + id);
+        assertThatThrownBy(() -> cache.getByUsername("alice", failing))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(loads).hasValue(2);
+        assertThat(cache.getById(id)).isNull();
+        assertThat(cache.getById(id, () -> user(id, "alice")).getUsername()).isEqualTo("alice");
+    }
+
+    @Test
+    void usernameLoadsFillBothIndexes() {
+        UUID id = UUID.randomUUID();
+
+        cache.getByUsername("Alice", () -> user(id, "alice"));
+
+        assertThat(cache.getById(id).getUsername()).isEqualTo("alice");
+        assertThat(cache.getByUsername("ALICE").getId()).isEqualTo(id);
+    }
+
+    @Test
+    void callersGetPrivateCopies() {
+        UUID id = UUID.randomUUID();
+        UserResponseDto first = cache.getById(id, () -> user(id, "alice"));
+
+        first.setBio("changed");
+
+        assertThat(cache.getById(id).getBio()).isEqualTo("bio");
+        assertThatThrownBy(() -> first.getAvatarRenditions().put("128", "x"))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void putDropsRowsReadBeforeAnEviction() {
+        UUID id = UUID.randomUUID();
+        long loadedAt = cache.generation();
+
+        cache.evict(id, "alice");
+        cache.put(user(id, "alice"), loadedAt);
+
+        assertThat(cache.getById(id)).isNull();
+        assertThat(cache.getByUsername("alice")).isNull();
+
+        cache.put(user(id, "alice"), cache.generation());
+        assertThat(cache.getById(id)).isNotNull();
+    }
+
+    private static UserResponseDto user(UUID id, String username) {
+        LocalDateTime now = LocalDateTime.now();
+        return new UserResponseDto(id, username, "bio", null, null, Map.of("128", "a_128.jpg"), null, now, now);
+    }
+
+    private double coalesced(String index) {
+        return meterRegistry.get("users.profile.loads.coalesced").tag("index", index).counter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
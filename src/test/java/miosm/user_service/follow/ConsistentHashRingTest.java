@@ -0,0 +1,72 @@
+package miosm.user_service.follow;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConsistentHashRingTest {
+
+    private static final int KEYS = 30_000;
+    private static final int VIRTUAL_NODES = 128;
+
+    private final List<UUID> keys = keys();
+    private final ConsistentHashRing three = new ConsistentHashRing(List.of("shard-0", "shard-1", "shard-2"), VIRTUAL_NODES);
+
+    @Test
+    void spreadsKeysEvenlyAcrossNodes() {
+        Map<String, Integer> counts = new HashMap<>();
+        keys.forEach(key -> counts.merge(three.nodeFor(key), 1, Integer::sum));
+
+        assertThat(counts).containsOnlyKeys("shard-0", "shard-1", "shard-2");
+        int fairShare = KEYS / 3;
+        counts.values().forEach(count -> assertThat(count).isBetween(fairShare * 8 / 10, fairShare * 12 / 10));
+    }
+
+    @Test
+    void addingANodeOnlyMovesKeysOntoIt() {
+        ConsistentHashRing four = new ConsistentHashRing(
+                List.of("shard-0", "shard-1", "shard-2", "shard-3"), VIRTUAL_NODES);
+
+        int moved = 0;
+        for (UUID key : keys) {
+            String before = three.nodeFor(key);
+            String after = four.nodeFor(key);
+            if (!before.equals(after)) {
+                assertThat(after).isEqualTo("shard-3");
+                moved++;
+            }
+        }
+        // Roughly a quarter of the keys belong to the new node; nothing else is reshuffled
+        assertThat(moved).isBetween(KEYS * 15 / 100, KEYS * 35 / 100);
+    }
+
+    @Test
+    void placementDoesNotDependOnNodeOrder() {
+        ConsistentHashRing reordered = new ConsistentHashRing(List.of("shard-2", "shard-0", "shard-1"), VIRTUAL_NODES);
+
+        keys.forEach(key -> assertThat(reordered.nodeFor(key)).isEqualTo(three.nodeFor(key)));
+    }
+
+    @Test
+    void rejectsAnEmptyRing() {
+        assertThatThrownBy(() -> new ConsistentHashRing(List.of(), VIRTUAL_NODES))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static List<UUID> keys() {
+        Random random = new Random(42);
+        List<UUID> keys = new ArrayList<>(KEYS);
+        for (int i = 0; i < KEYS; i++) {
+            keys.add(new UUID(random.nextLong(), random.nextLong()));
+        }
+        return keys;
+    }
+}
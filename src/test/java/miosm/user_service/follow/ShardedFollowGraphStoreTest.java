@@ -0,0 +1,218 @@
+package miosm.user_service.follow;
+
+import miosm.user_service.repository.UserRepository;
+import miosm.user_service.repository.projection.FollowCardView;
+import miosm.user_service.repository.projection.UserCardView;
+import miosm.user_service.util.SubscriptionCursor;
+import miosm.user_service.util.UuidBytes;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ShardedFollowGraphStoreTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private final FollowShards shards = mock(FollowShards.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final ShardedFollowGraphStore store = new ShardedFollowGraphStore(shards, userRepository);
+
+    private final InMemoryShard oldShard = new InMemoryShard();
+    private final InMemoryShard newShard = new InMemoryShard();
+    private final Set<UUID> deletedUsers = new HashSet<>();
+
+    private final UUID owner = UUID.randomUUID();
+    private long nextEdge;
+
+    @BeforeEach
+    void setUp() {
+        // The owner is mid-rebalance: the ring moved it from "old" to "new" and rows sit on both
+        when(shards.shardFor(any())).thenReturn("new");
+        when(shards.previousShardFor(owner)).thenReturn("old");
+        when(shards.jdbc("old")).thenReturn(oldShard);
+        when(shards.jdbc("new")).thenReturn(newShard);
+        when(userRepository.findCardsByIdIn(any())).thenAnswer(invocation -> {
+            Collection<UUID> ids = invocation.getArgument(0);
+            return ids.stream().filter(id -> !deletedUsers.contains(id)).map(ShardedFollowGraphStoreTest::card).toList();
+        });
+    }
+
+    @Test
+    void interleavesBothShardsNewestFirst() {
+        UUID a = follow(oldShard, 1);
+        UUID b = follow(newShard, 2);
+        UUID c = follow(oldShard, 3);
+        UUID d = follow(newShard, 4);
+        UUID e = follow(oldShard, 5);
+        UUID f = follow(newShard, 6);
+
+        List<FollowCardView> first = store.findFollowing(owner, null, 4);
+        List<FollowCardView> second = store.findFollowing(owner, cursorAfter(first), 4);
+
+        assertThat(ids(first)).containsExactly(f, e, d, c);
+        assertThat(ids(second)).containsExactly(b, a);
+    }
+
+    @Test
+    void breaksTimestampTiesByEdgeIdAcrossShards() {
+        UUID a = follow(oldShard, 1);
+        UUID b = follow(newShard, 1);
+        UUID c = follow(oldShard, 1);
+
+        List<FollowCardView> first = store.findFollowing(owner, null, 2);
+        List<FollowCardView> second = store.findFollowing(owner, cursorAfter(first), 2);
+
+        assertThat(ids(first)).containsExactly(c, b);
+        assertThat(ids(second)).containsExactly(a);
+    }
+
+    @Test
+    void prefersTheCurrentShardsCopyOfAnEdge() {
+        UUID peer = UUID.randomUUID();
+        UUID other = follow(oldShard, 3);
+        oldShard.add(ShardedFollowGraphStore.FORWARD, owner, peer, T0.plusMinutes(5), edgeId());
+        UUID current = edgeId();
+        newShard.add(ShardedFollowGraphStore.FORWARD, owner, peer, T0.plusMinutes(1), current);
+
+        List<FollowCardView> page = store.findFollowing(owner, null, 10);
+
+        assertThat(ids(page)).containsExactly(other, peer);
+        assertThat(page.get(1).getSubscriptionId()).isEqualTo(current);
+        assertThat(page.get(1).getFollowedAt()).isEqualTo(T0.plusMinutes(1));
+    }
+
+    @Test
+    void keepsFillingThePagePastDeletedUsers() {
+        UUID a = follow(oldShard, 1);
+        deletedUsers.add(follow(newShard, 2));
+        deletedUsers.add(follow(oldShard, 3));
+        UUID d = follow(newShard, 4);
+
+        assertThat(ids(store.findFollowing(owner, null, 2))).containsExactly(d, a);
+    }
+
+    @Test
+    void readsOnlyTheCurrentShardOnceTheOwnerHasSettled() {
+        UUID settled = UUID.randomUUID();
+        UUID peer = UUID.randomUUID();
+        newShard.add(ShardedFollowGraphStore.REVERSE, settled, peer, T0, edgeId());
+        oldShard.add(ShardedFollowGraphStore.REVERSE, settled, UUID.randomUUID(), T0.plusMinutes(1), edgeId());
+
+        assertThat(ids(store.findFollowers(settled, null, 10))).containsExactly(peer);
+    }
+
+    private UUID follow(InMemoryShard shard, int minute) {
+        UUID peer = UUID.randomUUID();
+        shard.add(ShardedFollowGraphStore.FORWARD, owner, peer, T0.plusMinutes(minute), edgeId());
+        return peer;
+    }
+
+    // Edge ids increase with insertion order so timestamp ties have a known order
+    private UUID edgeId() {
+        return new UUID(0, ++nextEdge);
+    }
+
+    private static SubscriptionCursor cursorAfter(List<FollowCardView> page) {
+        FollowCardView last = page.get(page.size() - 1);
+        return new SubscriptionCursor(last.getFollowedAt(), last.getSubscriptionId());
+    }
+
+    private static List<UUID> ids(List<FollowCardView> cards) {
+        return cards.stream().map(FollowCardView::getId).toList();
+    }
+
+    private static UserCardView card(UUID id) {
+        return new Card(id, "user-" + id);
+    }
+
+    private record Card(UUID id, String username) implements UserCardView {
+
+        @Override
+        public UUID getId() {
+            return id;
+        }
+
+        @Override
+        public String getUsername() {
+            return username;
+        }
+
+        @Override
+        public String getAvatarUrl() {
+            return null;
+        }
+
+        @Override
+        public Boolean getAvatarRenditionsReady() {
+            return false;
+        }
+    }
+
+    // Answers the edge page queries the store issues, in the order MySQL would return them
+    private static final class InMemoryShard extends JdbcTemplate {
+
+        private static final Comparator<Row> NEWEST_FIRST = Comparator.comparing(Row::createdAt)
+                .thenComparing(Row::edgeId, Comparator.comparing(UuidBytes::toBytes, Arrays::compareUnsigned))
+                .reversed();
+
+        private final List<Row> rows = new ArrayList<>();
+
+        void add(String table, UUID owner, UUID peer, LocalDateTime createdAt, UUID edgeId) {
+            rows.add(new Row(table, owner, peer, createdAt, edgeId));
+        }
+
+        @Override
+        public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            UUID owner = UuidBytes.fromBytes((byte[]) args[0]);
+            Row after = args.length == 2 ? null
+                    : new Row(null, owner, null, ((Timestamp) args[1]).toLocalDateTime(), UuidBytes.fromBytes((byte[]) args[3]));
+            int limit = (Integer) args[args.length - 1];
+
+            List<T> result = new ArrayList<>();
+            for (Row row : rows.stream().sorted(NEWEST_FIRST).toList()) {
+                if (result.size() == limit) {
+                    break;
+                }
+                if (sql.contains(" " + row.table() + " ") && row.owner().equals(owner)
+                        && (after == null || NEWEST_FIRST.compare(row, after) > 0)) {
+                    result.add(map(rowMapper, row, result.size()));
+                }
+            }
+            return result;
+        }
+
+        private static <T> T map(RowMapper<T> rowMapper, Row row, int index) {
+            try {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getBytes("peer_id")).thenReturn(UuidBytes.toBytes(row.peer()));
+                when(rs.getTimestamp("created_at")).thenReturn(Timestamp.valueOf(row.createdAt()));
+                when(rs.getBytes("edge_id")).thenReturn(UuidBytes.toBytes(row.edgeId()));
+                return rowMapper.mapRow(rs, index);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private record Row(String table, UUID owner, UUID peer, LocalDateTime createdAt, UUID edgeId) {
+        }
+    }
+}
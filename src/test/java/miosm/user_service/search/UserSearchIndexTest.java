@@ -0,0 +1,113 @@
+package miosm.user_service.search;
+
+import miosm.user_service.repository.UserRepository;
+import miosm.user_service.repository.projection.UserSearchView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserSearchIndexTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserSearchIndex index = new UserSearchIndex(userRepository);
+
+    private final UUID ann = UUID.randomUUID();
+    private final UUID anna = UUID.randomUUID();
+    private final UUID joanne = UUID.randomUUID();
+    private final UUID bob = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        index.index(bob, "bob", "Annual reports, mostly");
+        index.index(joanne, "JoAnne", null);
+        index.index(anna, "anna", "likes ann");
+        index.index(ann, "ann", null);
+    }
+
+    @Test
+    void ranksExactThenPrefixThenSubstringThenBio() {
+        List<SearchHit> hits = index.search("Ann", null, 10);
+
+        assertThat(hits).extracting(SearchHit::id).containsExactly(ann, anna, joanne, bob);
+        assertThat(hits).extracting(SearchHit::rank).containsExactly(1, 2, 3, 4);
+    }
+
+    @Test
+    void pagesAfterTheCursorWithoutRepeats() {
+        List<SearchHit> first = index.search("ann", null, 2);
+        List<SearchHit> second = index.search("ann", first.get(first.size() - 1), 2);
+        List<SearchHit> third = index.search("ann", second.get(second.size() - 1), 2);
+
+        assertThat(first).extracting(SearchHit::id).containsExactly(ann, anna);
+        assertThat(second).extracting(SearchHit::id).containsExactly(joanne, bob);
+        assertThat(third).isEmpty();
+    }
+
+    @Test
+    void shortQueriesOnlyMatchUsernamePrefixes() {
+        List<SearchHit> first = index.search("an", null, 1);
+        List<SearchHit> second = index.search("an", first.get(0), 5);
+
+        assertThat(first).extracting(SearchHit::id).containsExactly(ann);
+        assertThat(second).extracting(SearchHit::id).containsExactly(anna);
+        assertThat(second).extracting(SearchHit::rank).containsExactly(2);
+    }
+
+    @Test
+    void bioMatchesNeedWordPrefixes() {
+        assertThat(index.search("ports", null, 10)).isEmpty();
+        assertThat(index.search("reports most", null, 10)).extracting(SearchHit::id).containsExactly(bob);
+    }
+
+    @Test
+    void reindexingReplacesTheOldPostings() {
+        index.index(joanne, "jo", null);
+        index.remove(bob);
+
+        assertThat(index.search("ann", null, 10)).extracting(SearchHit::id).containsExactly(ann, anna);
+        assertThat(index.search("jo", null, 10)).extracting(SearchHit::id).containsExactly(joanne);
+    }
+
+    @Test
+    void rebuildDoesNotRestoreAUserDeletedAfterItsRowWasRead() {
+        UUID carl = UUID.randomUUID();
+        ReflectionTestUtils.setField(index, "rebuildBatchSize", 100);
+        // The rebuild's batch still holds carl, whose delete lands while the batch is in flight
+        when(userRepository.findSearchViews(any())).thenAnswer(invocation -> {
+            index.remove(carl);
+            return List.of(view(carl, "carl"));
+        });
+
+        index.rebuild();
+
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.search("carl", null, 10)).isEmpty();
+    }
+
+    private static UserSearchView view(UUID id, String username) {
+        return new UserSearchView() {
+            @Override
+            public UUID getId() {
+                return id;
+            }
+
+            @Override
+            public String getUsername() {
+                return username;
+            }
+
+            @Override
+            public String getBio() {
+                return null;
+            }
+        };
+    }
+}
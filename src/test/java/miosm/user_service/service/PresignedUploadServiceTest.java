@@ -0,0 +1,111 @@
+package miosm.user_service.service;
+
+import io.minio.StatObjectResponse;
+import miosm.user_service.cache.UserProfileCache;
+import miosm.user_service.entity.ImageKind;
+import miosm.user_service.mapper.UserResponseMapper;
+import miosm.user_service.repository.UserRepository;
+import miosm.user_service.util.UploadTicket;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PresignedUploadServiceTest {
+
+    private static final String SECRET = "test-presign-secret-at-least-32-bytes";
+    private static final Duration EXPIRY = Duration.ofMinutes(10);
+
+    private final MinioService minioService = mock(MinioService.class);
+    private final OrphanImageCollector orphanImageCollector = mock(OrphanImageCollector.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+
+    private final UUID userId = UUID.randomUUID();
+    private final String objectKey = ImageKind.AVATAR.getFolder() + "/" + UUID.randomUUID() + ".png";
+
+    private PresignedUploadService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        service = new PresignedUploadService(minioService, mock(ImageRenditionService.class), orphanImageCollector,
+                userRepository, mock(UserResponseMapper.class), mock(UserProfileCache.class));
+        ReflectionTestUtils.setField(service, "expiry", EXPIRY);
+        ReflectionTestUtils.setField(service, "secret", SECRET);
+
+        StatObjectResponse stat = mock(StatObjectResponse.class);
+        when(stat.size()).thenReturn(2048L);
+        when(stat.contentType()).thenReturn("image/png");
+        when(minioService.statObject(objectKey)).thenReturn(stat);
+        when(minioService.objectUrl(objectKey)).thenReturn("http://storage/" + objectKey);
+    }
+
+    @Test
+    void rejectsTokensPastTheCompletionWindow() throws Exception {
+        String token = token(userId, Instant.now().minus(EXPIRY).minusSeconds(5));
+
+        assertThatThrownBy(() -> service.complete(userId, ImageKind.AVATAR, objectKey, token))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Upload token has expired");
+        verify(minioService, never()).statObject(any());
+        verify(orphanImageCollector, never()).claimPendingUpload(any());
+    }
+
+    @Test
+    void acceptsTokensWithinTheCompletionWindowOnlyOnce() throws Exception {
+        String token = token(userId, Instant.now().minus(EXPIRY.dividedBy(2)));
+        when(orphanImageCollector.claimPendingUpload(objectKey)).thenReturn(false);
+
+        assertThatThrownBy(() -> service.complete(userId, ImageKind.AVATAR, objectKey, token))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Upload has already been completed: " + objectKey);
+        verify(minioService).statObject(objectKey);
+        verify(userRepository, never()).updateAvatarUrl(any(), any(), anyBoolean());
+    }
+
+    @Test
+    void rejectsAnObjectOfAnotherSizeThanSigned() throws Exception {
+        String token = new UploadTicket(userId, ImageKind.AVATAR, objectKey, "image/png", 4096, Instant.now().plus(EXPIRY))
+                .sign(SECRET);
+
+        assertThatThrownBy(() -> service.complete(userId, ImageKind.AVATAR, objectKey, token))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Uploaded object does not match the declared type or size");
+        verify(orphanImageCollector, never()).claimPendingUpload(any());
+    }
+
+    @Test
+    void rejectsTokensIssuedForAnotherUser() throws Exception {
+        String token = token(UUID.randomUUID(), Instant.now().plus(EXPIRY));
+
+        assertThatThrownBy(() -> service.complete(userId, ImageKind.AVATAR, objectKey, token))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Upload token does not match this upload");
+        verify(minioService, never()).statObject(any());
+    }
+
+    @Test
+    void rejectsTokensSignedWithAnotherSecret() throws Exception {
+        String token = new UploadTicket(userId, ImageKind.AVATAR, objectKey, "image/png", 2048, Instant.now().plus(EXPIRY))
+                .sign("another-presign-secret-of-32-bytes!");
+
+        assertThatThrownBy(() -> service.complete(userId, ImageKind.AVATAR, objectKey, token))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid upload token");
+        verify(minioService, never()).statObject(any());
+    }
+
+    private String token(UUID owner, Instant expiresAt) {
+        return new UploadTicket(owner, ImageKind.AVATAR, objectKey, "image/png", 2048, expiresAt).sign(SECRET);
+    }
+}
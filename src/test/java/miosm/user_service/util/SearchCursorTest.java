@@ -0,0 +1,52 @@
+package miosm.user_service.util;
+
+import miosm.user_service.search.SearchHit;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SearchCursorTest {
+
+    @Test
+    void roundTripsAHit() {
+        SearchHit hit = new SearchHit(3, "alice", UUID.randomUUID());
+
+        assertThat(SearchCursor.decode(SearchCursor.encode(hit))).isEqualTo(hit);
+    }
+
+    @Test
+    void keepsSeparatorsInsideTheUsername() {
+        SearchHit hit = new SearchHit(4, "a|b|c", UUID.randomUUID());
+
+        assertThat(SearchCursor.decode(SearchCursor.encode(hit))).isEqualTo(hit);
+    }
+
+    @Test
+    void rejectsInputThatIsNotBase64() {
+        assertThatThrownBy(() -> SearchCursor.decode("not a cursor!"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor");
+    }
+
+    @Test
+    void rejectsTamperedFields() {
+        assertThatThrownBy(() -> SearchCursor.decode(encode("x|" + UUID.randomUUID() + "|alice")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor");
+        assertThatThrownBy(() -> SearchCursor.decode(encode("1|not-a-uuid|alice")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor");
+        assertThatThrownBy(() -> SearchCursor.decode(encode("1|alice")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor");
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,45 @@
+package miosm.user_service.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SubscriptionCursorTest {
+
+    @Test
+    void roundTripsWithMicroseconds() {
+        SubscriptionCursor cursor = new SubscriptionCursor(LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_456_000), UUID.randomUUID());
+
+        assertThat(SubscriptionCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void rejectsInputThatIsNotBase64() {
+        assertThatThrownBy(() -> SubscriptionCursor.decode("%%%"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor");
+    }
+
+    @Test
+    void rejectsTamperedFields() {
+        assertThatThrownBy(() -> SubscriptionCursor.decode(encode("yesterday|" + UUID.randomUUID())))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor");
+        assertThatThrownBy(() -> SubscriptionCursor.decode(encode("2024-05-01T12:30:15|not-a-uuid")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor");
+        assertThatThrownBy(() -> SubscriptionCursor.decode(encode("2024-05-01T12:30:15")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor");
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,102 @@
+package miosm.user_service.util;
+
+import miosm.user_service.entity.ImageKind;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UploadTicketTest {
+
+    private static final String SECRET = "test-presign-secret-at-least-32-bytes";
+
+    private final UploadTicket ticket = new UploadTicket(UUID.randomUUID(), ImageKind.AVATAR,
+            "avatars/" + UUID.randomUUID() + ".png", "image/png", 2048, Instant.ofEpochSecond(1_700_000_000L));
+
+    @Test
+    void roundTripsThroughItsToken() {
+        assertThat(UploadTicket.verify(ticket.sign(SECRET), SECRET)).isEqualTo(ticket);
+    }
+
+    @Test
+    void keepsTheExpiryToTheSecond() {
+        UploadTicket precise = new UploadTicket(ticket.userId(), ticket.kind(), ticket.objectKey(),
+                ticket.contentType(), ticket.size(), Instant.ofEpochSecond(1_700_000_000L, 123_456_789));
+
+        assertThat(UploadTicket.verify(precise.sign(SECRET), SECRET).expiresAt())
+                .isEqualTo(Instant.ofEpochSecond(1_700_000_000L));
+    }
+
+    @Test
+    void rejectsATokenSignedWithAnotherSecret() {
+        String token = ticket.sign("another-presign-secret-of-32-bytes!");
+
+        assertInvalid(token);
+    }
+
+    @Test
+    void rejectsAnAlteredTicket() {
+        String token = ticket.sign(SECRET);
+        String signature = token.substring(token.indexOf('.') + 1);
+        String larger = new UploadTicket(ticket.userId(), ticket.kind(), ticket.objectKey(),
+                ticket.contentType(), ticket.size() * 1000, ticket.expiresAt()).sign(SECRET);
+        String payload = larger.substring(0, larger.indexOf('.'));
+
+        assertInvalid(payload + "." + signature);
+    }
+
+    @Test
+    void rejectsAnAlteredSignature() {
+        // The first signature character carries six full bits, unlike the last one
+        String token = ticket.sign(SECRET);
+        int first = token.indexOf('.') + 1;
+        char flipped = token.charAt(first) == 'A' ? 'B' : 'A';
+
+        assertInvalid(token.substring(0, first) + flipped + token.substring(first + 1));
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        assertInvalid("");
+        assertInvalid("no-separator");
+        assertInvalid("a.b.c");
+        assertInvalid("!!!.???");
+        assertInvalid(null);
+    }
+
+    @Test
+    void rejectsASignedPayloadWithTheWrongShape() {
+        String raw = "not|enough|fields";
+        String token = encode(raw.getBytes(StandardCharsets.UTF_8)) + "." + encode(hmac(raw));
+
+        assertInvalid(token);
+    }
+
+    private static void assertInvalid(String token) {
+        assertThatThrownBy(() -> UploadTicket.verify(token, SECRET))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid upload token");
+    }
+
+    private static byte[] hmac(String raw) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return mac.doFinal(raw.getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String encode(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,69 @@
+package miosm.user_service.fixtures;
+
+import miosm.user_service.util.UuidBytes;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Batches users and follows straight into the main schema through JDBC; going through JPA would dominate setup time.
+// Add all users before the first follow, then call finish() to flush and rebuild the follow counters.
+public final class SeedWriter {
+
+    private static final int BATCH_SIZE = 5_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final List<Object[]> users = new ArrayList<>(BATCH_SIZE);
+    private final List<Object[]> follows = new ArrayList<>(BATCH_SIZE);
+    private final Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+    public SeedWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void user(UUID id, String username, String bio, String avatarUrl) {
+        users.add(new Object[]{UuidBytes.toBytes(id), username, bio, avatarUrl, now, now});
+        if (users.size() >= BATCH_SIZE) {
+            flushUsers();
+        }
+    }
+
+    public void follow(UUID followerId, UUID followingId, LocalDateTime createdAt) {
+        flushUsers();
+        follows.add(new Object[]{UuidBytes.toBytes(UUID.randomUUID()), UuidBytes.toBytes(followerId),
+                UuidBytes.toBytes(followingId), Timestamp.valueOf(createdAt)});
+        if (follows.size() >= BATCH_SIZE) {
+            flushFollows();
+        }
+    }
+
+    public void finish() {
+        flushUsers();
+        flushFollows();
+        jdbcTemplate.update("UPDATE users u SET " +
+                "followers_count = (SELECT COUNT(*) FROM subscriptions s WHERE s.following_id = u.id), " +
+                "following_count = (SELECT COUNT(*) FROM subscriptions s WHERE s.follower_id = u.id)");
+    }
+
+    private void flushUsers() {
+        if (users.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO users (id, username, bio, avatar_url, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?)", users);
+        users.clear();
+    }
+
+    // Random targets can repeat; the unique (follower_id, following_id) key drops the duplicates
+    private void flushFollows() {
+        if (follows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT IGNORE INTO subscriptions (id, follower_id, following_id, created_at) VALUES (?, ?, ?, ?)", follows);
+        follows.clear();
+    }
+}